@@ -4,13 +4,18 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import dani.daniel.helpDesk.api.User;
 import dani.daniel.helpDesk.api.enums.ProfileEnum;
 import dani.daniel.helpDesk.api.repository.UserRepository;
+import dani.daniel.helpDesk.api.service.TicketService;
 
 @SpringBootApplication
+@EnableScheduling
+@EnableAsync
 public class HelpDeskApplication {
 
 	public static void main(String[] args) {
@@ -18,9 +23,11 @@ public class HelpDeskApplication {
 	}
 	
 	@Bean
-	CommandLineRunner init(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+	CommandLineRunner init(UserRepository userRepository, PasswordEncoder passwordEncoder, TicketService ticketService) {
 		return args -> {
 			initUsers(userRepository, passwordEncoder);
+			ticketService.initVersions();
+			ticketService.initNumberSequence();
 		};
 	}
 
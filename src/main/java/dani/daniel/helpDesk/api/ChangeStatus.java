@@ -3,12 +3,14 @@ package dani.daniel.helpDesk.api;
 import java.util.Date;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import dani.daniel.helpDesk.api.enums.StatusEnum;
 
 @Document
+@CompoundIndex(name = "ticket_date", def = "{'ticket.$id': 1, 'dateChangeStatus': -1}", background = true)
 public class ChangeStatus {
 
 	@Id
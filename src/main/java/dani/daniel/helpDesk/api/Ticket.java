@@ -5,24 +5,46 @@ import java.util.List;
 
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.Transient;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.index.TextIndexed;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonProperty.Access;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+
 import dani.daniel.helpDesk.api.enums.PriorityEnum;
 import dani.daniel.helpDesk.api.enums.StatusEnum;
 @Document
+@JsonInclude(Include.NON_NULL)
+@CompoundIndexes({
+	@CompoundIndex(name = "date_id", def = "{'date': -1, '_id': -1}", background = true),
+	@CompoundIndex(name = "user_date_id", def = "{'user.$id': 1, 'date': -1, '_id': -1}", background = true),
+	@CompoundIndex(name = "assignedUser_date_id", def = "{'assignedUser.$id': 1, 'date': -1, '_id': -1}", background = true),
+	@CompoundIndex(name = "status_priority_date", def = "{'status': 1, 'priority': 1, 'date': -1}", background = true)
+})
 public class Ticket {
 
 	@Id
 	private String id;
+	
+	@Version
+	private Long version;
 
 	@DBRef(lazy = true)
 	private User user;
 
 	private Date date;
 
+	@TextIndexed(weight = 3)
 	private String title;
 
+	@Indexed(unique = true, background = true)
 	private Integer number;
 
 	private StatusEnum status;
@@ -32,10 +54,14 @@ public class Ticket {
 	@DBRef(lazy = true)
 	private User assignedUser;
 
+	@TextIndexed
 	private String description;
 
 	private String image;
 	
+	@JsonProperty(access = Access.READ_ONLY)
+	private Attachment attachment;
+	
 	@Transient
 	private List<ChangeStatus> changes;
 
@@ -47,6 +73,14 @@ public class Ticket {
 		this.id = id;
 	}
 
+	public Long getVersion() {
+		return version;
+	}
+
+	public void setVersion(Long version) {
+		this.version = version;
+	}
+
 	public User getUser() {
 		return user;
 	}
@@ -119,6 +153,14 @@ public class Ticket {
 		this.image = image;
 	}
 
+	public Attachment getAttachment() {
+		return attachment;
+	}
+
+	public void setAttachment(Attachment attachment) {
+		this.attachment = attachment;
+	}
+
 	public List<ChangeStatus> getChanges() {
 		return changes;
 	}
@@ -19,7 +19,7 @@ public class User {
 	@Id
 	private String id;
 	
-	@Indexed(unique = true)
+	@Indexed(unique = true, background = true)
 	@NotBlank(message = "E-mail required")
 	@Email(message = "E-mail invalid")
 	private String email;
@@ -0,0 +1,125 @@
+package dani.daniel.helpDesk.api.config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import dani.daniel.helpDesk.api.ChangeStatus;
+import dani.daniel.helpDesk.api.Ticket;
+import dani.daniel.helpDesk.api.User;
+
+/**
+ * Builds the indexes declared on the documents once the application is up,
+ * off the startup thread, and then logs every repository query shape whose
+ * winning plan is still a COLLSCAN.
+ */
+@Component
+public class MongoIndexInitializer {
+	
+	private final Log logger = LogFactory.getLog(this.getClass());
+	
+	@Autowired
+	private MongoTemplate mongoTemplate;
+	
+	@Autowired
+	private MongoMappingContext mappingContext;
+	
+	@Value("${mongo.index.explain-check:true}")
+	private boolean explainCheck;
+
+	@Async
+	@EventListener(ApplicationReadyEvent.class)
+	public void initIndexes() {
+		MongoPersistentEntityIndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+		for (Class<?> type : Arrays.asList(User.class, Ticket.class, ChangeStatus.class)) {
+			IndexOperations indexOperations = mongoTemplate.indexOps(type);
+			for (IndexDefinition index : resolver.resolveIndexFor(type)) {
+				try {
+					indexOperations.ensureIndex(index);
+				} catch (Exception e) {
+					logger.warn("HelpDesk-API | could not build index " + index.getIndexKeys() + " on "
+							+ mongoTemplate.getCollectionName(type) + ": " + e.getMessage());
+				}
+			}
+		}
+		logger.info("HelpDesk-API | indexes ensured");
+		if (explainCheck) {
+			checkQueryPlans();
+		}
+	}
+	
+	private void checkQueryPlans() {
+		ObjectId anyId = new ObjectId();
+		Document byDate = new Document("date", -1).append("_id", -1);
+		String tickets = mongoTemplate.getCollectionName(Ticket.class);
+		String changes = mongoTemplate.getCollectionName(ChangeStatus.class);
+		String users = mongoTemplate.getCollectionName(User.class);
+		
+		explain("TicketRepository.findPageByFilter(number)", tickets,
+				new Document("number", 1), byDate);
+		explain("TicketRepository.findPageByFilter", tickets,
+				new Document(), byDate);
+		explain("TicketRepository.findPageByFilter(userId)", tickets,
+				new Document("user.$id", anyId), byDate);
+		explain("TicketRepository.findPageByFilter(assignedUserId)", tickets,
+				new Document("assignedUser.$id", anyId), byDate);
+		explain("TicketRepository.findPageByFilter(status, priority)", tickets,
+				new Document("status", "New").append("priority", "High"), byDate);
+		explain("ChangeStatusRepository.findHistoryByTicketId", changes,
+				new Document("ticket.$id", anyId), new Document("dateChangeStatus", -1));
+		explain("UserRepository.findByEmail", users,
+				new Document("email", "explain@helpdesk.com"), null);
+	}
+	
+	private void explain(String queryName, String collection, Document filter, Document sort) {
+		Document find = new Document("find", collection).append("filter", filter);
+		if (sort != null) {
+			find.append("sort", sort);
+		}
+		try {
+			Document explain = mongoTemplate.getDb().runCommand(
+					new Document("explain", find).append("verbosity", "queryPlanner"));
+			Document winningPlan = explain.get("queryPlanner", Document.class).get("winningPlan", Document.class);
+			List<String> stages = new ArrayList<String>();
+			collectStages(winningPlan, stages);
+			if (stages.contains("COLLSCAN")) {
+				logger.warn("HelpDesk-API | " + queryName + " runs a COLLSCAN: " + stages);
+			}
+		} catch (Exception e) {
+			logger.warn("HelpDesk-API | could not explain " + queryName + ": " + e.getMessage());
+		}
+	}
+	
+	private void collectStages(Object plan, List<String> stages) {
+		if (plan instanceof Document) {
+			Document stage = (Document) plan;
+			if (stage.containsKey("stage")) {
+				stages.add(stage.getString("stage"));
+			}
+			for (Object value : stage.values()) {
+				collectStages(value, stages);
+			}
+		} else if (plan instanceof List) {
+			for (Object value : (List<?>) plan) {
+				collectStages(value, stages);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,97 @@
+package dani.daniel.helpDesk.api.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.annotation.PreDestroy;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+
+/**
+ * Experimental, off by default: with {@code helpdesk.experimental.virtual-threads=true}
+ * Tomcat requests and {@code @Async} tasks run on one virtual thread each
+ * instead of the bounded platform pools. The build still targets Java 8, so
+ * the executor is looked up reflectively and the mode only takes effect on a
+ * Java 21 runtime; older runtimes keep the platform pools with a warning.
+ * <p>
+ * Not for production yet: the 4.0 synchronous Mongo driver blocks inside
+ * {@code synchronized} sections (connection pool checkout, socket reads),
+ * which pins the virtual thread to its carrier. Concurrent Mongo calls are
+ * then capped by the carrier count ({@code jdk.virtualThreadScheduler.parallelism},
+ * the number of cores by default), not by the 200-thread pool, until the
+ * driver is upgraded to a release that avoids pinning.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = Type.SERVLET)
+@ConditionalOnProperty(name = VirtualThreadConfig.ENABLED, havingValue = "true")
+@Conditional(VirtualThreadConfig.VirtualThreadsAvailable.class)
+public class VirtualThreadConfig {
+	
+	static final String ENABLED = "helpdesk.experimental.virtual-threads";
+	
+	private static final Log logger = LogFactory.getLog(VirtualThreadConfig.class);
+	
+	private final ExecutorService executor;
+	
+	public VirtualThreadConfig() {
+		this(newVirtualThreadPerTaskExecutor());
+	}
+	
+	VirtualThreadConfig(ExecutorService executor) {
+		this.executor = executor;
+	}
+	
+	@Bean
+	public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+		logger.warn("Requests and async tasks run on virtual threads (experimental, Mongo driver calls pin their carrier)");
+		return protocolHandler -> protocolHandler.setExecutor(executor);
+	}
+	
+	@Bean(name = { "applicationTaskExecutor", "taskExecutor" })
+	public AsyncTaskExecutor virtualThreadTaskExecutor() {
+		return new TaskExecutorAdapter(executor);
+	}
+	
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdown();
+	}
+	
+	private static ExecutorService newVirtualThreadPerTaskExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+			throw new IllegalStateException("Virtual threads are not available", e);
+		}
+	}
+	
+	static class VirtualThreadsAvailable implements Condition {
+
+		@Override
+		public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+			try {
+				Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+				return true;
+			} catch (NoSuchMethodException e) {
+				logger.warn("Virtual threads are not available on Java " + System.getProperty("java.version")
+						+ ", keeping the platform thread pools");
+				return false;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,262 @@
+package dani.daniel.helpDesk.api.controller;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import dani.daniel.helpDesk.api.Ticket;
+import dani.daniel.helpDesk.api.dto.Summary;
+import dani.daniel.helpDesk.api.dto.TicketFilter;
+import dani.daniel.helpDesk.api.enums.StatusEnum;
+import dani.daniel.helpDesk.api.response.Response;
+import dani.daniel.helpDesk.api.security.model.AuthenticatedUser;
+import dani.daniel.helpDesk.api.service.ReactiveTicketService;
+import dani.daniel.helpDesk.api.service.StatusTransitionException;
+import reactor.core.publisher.Mono;
+
+/**
+ * Routes of {@link TicketController} served by WebFlux when the application
+ * runs as a reactive web application.
+ * <p>
+ * Only create, update, delete, find by id, the paged searches, the single
+ * status change and the summary are ported. The cursor and slice searches,
+ * merge patch, NDJSON import, export, bulk status change, attachment download
+ * and cache statistics answer 501 Not Implemented, so they do not fall
+ * through to a wider route such as {@code {id}}. Responses carry no ETag or
+ * {@code Cache-Control} headers, so conditional requests always get the full
+ * body.
+ */
+@RestController
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+@RequestMapping("/api/ticket")
+@CrossOrigin(origins = "*")
+public class ReactiveTicketController {
+	
+	@Autowired
+	private ReactiveTicketService ticketService;
+	
+	@PostMapping
+	@PreAuthorize("hasAnyRole('CUSTOMER')")
+	public Mono<ResponseEntity<Response<Ticket>>> create(AuthenticatedUser userRequest,
+														 @RequestBody Ticket ticket) {
+		List<String> errors = validateCreateTicket(ticket);
+		if (!errors.isEmpty()) {
+			return Mono.just(badRequest(errors));
+		}
+		ticket.setStatus(StatusEnum.getStatus("New"));
+		ticket.setUser(userRequest.toUser());
+		ticket.setDate(new Date());
+		ticket.setAttachment(null);
+		return ticketService.generateNumber()
+				.flatMap(number -> {
+					ticket.setNumber(number);
+					return ticketService.createOrUpdate(ticket);
+				})
+				.map(ReactiveTicketController::ok)
+				.onErrorResume(e -> Mono.just(badRequest(e.getMessage())));
+		
+	}
+	
+	@PutMapping
+	@PreAuthorize("hasAnyRole('CUSTOMER')")
+	public Mono<ResponseEntity<Response<Ticket>>> update(@RequestBody Ticket ticket) {
+		List<String> errors = validateUpdateTicket(ticket);
+		if (!errors.isEmpty()) {
+			return Mono.just(badRequest(errors));
+		}
+		return ticketService.findById(ticket.getId())
+				.switchIfEmpty(Mono.error(new NoSuchElementException("Register not found id: " + ticket.getId())))
+				.flatMap(ticketCurrent -> {
+					ticket.setStatus(ticketCurrent.getStatus());
+					ticket.setUser(ticketCurrent.getUser());
+					ticket.setDate(ticketCurrent.getDate());
+					ticket.setNumber(ticketCurrent.getNumber());
+					ticket.setAttachment(ticket.getImage() == null ? ticketCurrent.getAttachment() : null);
+					if (ticketCurrent.getAssignedUser() != null) {
+						ticket.setAssignedUser(ticketCurrent.getAssignedUser());
+					}
+					if (ticket.getVersion() == null) {
+						ticket.setVersion(ticketCurrent.getVersion());
+					}
+					return ticketService.createOrUpdate(ticket);
+				})
+				.map(ReactiveTicketController::ok)
+				.onErrorResume(OptimisticLockingFailureException.class,
+						e -> Mono.just(error(HttpStatus.CONFLICT, e.getMessage())))
+				.onErrorResume(e -> Mono.just(badRequest(e.getMessage())));
+		
+	}
+	
+	@GetMapping(value = "{id}")
+	@PreAuthorize("hasAnyRole('CUSTOMER', 'TECHNICIAN')")
+	public Mono<ResponseEntity<Response<Ticket>>> findById(@PathVariable("id") String id) {
+		return ticketService.findById(id)
+				.zipWith(ticketService.listChangeStatus(id), (ticket, changes) -> {
+					ticket.setChanges(changes);
+					return ok(ticket);
+				})
+				.defaultIfEmpty(badRequest("Register not found id: " + id));
+	}
+	
+	@DeleteMapping(value = "{id}")
+	@PreAuthorize("hasAnyRole('CUSTOMER')")
+	public Mono<ResponseEntity<Response<String>>> delete(@PathVariable("id") String id) {
+		return ticketService.delete(id)
+				.map(ticket -> ResponseEntity.ok(new Response<String>()))
+				.defaultIfEmpty(badRequest("Register not found" + id));
+	}
+	
+	@GetMapping(value = "{page}/{count}")
+	@PreAuthorize("hasAnyRole('CUSTOMER', 'TECHNICIAN')")
+	public Mono<ResponseEntity<Response<Page<Ticket>>>> findAll(AuthenticatedUser userRequest,
+																@PathVariable int page,
+																@PathVariable int count,
+																@RequestParam(value = "fields", required = false) String fields) {
+		TicketFilter filter;
+		try {
+			filter = TicketFilters.listFilter(userRequest, fields);
+		} catch (IllegalArgumentException e) {
+			return Mono.just(badRequest(e.getMessage()));
+		}
+		return ticketService.findByFilter(filter, page, count).map(ReactiveTicketController::ok);
+	}
+	
+	@GetMapping(value = "{page}/{count}/{number}/{title}/{status}/{priority}/{assigned}")
+	@PreAuthorize("hasAnyRole('CUSTOMER', 'TECHNICIAN')")
+	public Mono<ResponseEntity<Response<Page<Ticket>>>> findByParams(AuthenticatedUser userRequest,
+																	 @PathVariable("page") int page,
+																	 @PathVariable("count") int count,
+																	 @PathVariable("number") Integer number,
+																	 @PathVariable("title") String title,
+																	 @PathVariable("status") String status,
+																	 @PathVariable("priority") String priority,
+																	 @PathVariable("assigned") boolean assigned,
+																	 @RequestParam(value = "text", required = false) String text,
+																	 @RequestParam(value = "fields", required = false) String fields) {
+		TicketFilter filter;
+		try {
+			filter = TicketFilters.searchFilter(userRequest, number, title, status, priority, assigned, text, fields);
+		} catch (IllegalArgumentException e) {
+			return Mono.just(badRequest(e.getMessage()));
+		}
+		return ticketService.findByFilter(filter, page, count).map(ReactiveTicketController::ok);
+	}
+	
+	@PutMapping("{id}/{status}")
+	@PreAuthorize("hasAnyRole('CUSTOMER', 'TECHNICIAN')")
+	public Mono<ResponseEntity<Response<Ticket>>> changeStatus(AuthenticatedUser userRequest,
+															   @PathVariable("id") String id,
+															   @PathVariable("status") String status) {
+		if (!StatusEnum.isValid(status)) {
+			return Mono.just(badRequest("Status invalid"));
+		}
+		return ticketService.changeStatus(id, StatusEnum.getStatus(status), userRequest.toUser())
+				.map(ReactiveTicketController::ok)
+				.onErrorResume(StatusTransitionException.class,
+						e -> Mono.just(error(HttpStatus.CONFLICT, e.getMessage())))
+				.onErrorResume(NoSuchElementException.class, e -> Mono.just(badRequest(e.getMessage())));
+	}
+	
+	@GetMapping(value = "/summary")
+	@PreAuthorize("hasAnyRole('CUSTOMER', 'TECHNICIAN')")
+	public Mono<ResponseEntity<Response<Summary>>> findSummary(AuthenticatedUser userRequest,
+															   @RequestParam(value = "user", required = false) String userId,
+															   @RequestParam(value = "assigned", required = false) String assignedUserId,
+															   @RequestParam(value = "from", required = false) @DateTimeFormat(iso = ISO.DATE_TIME) Date from,
+															   @RequestParam(value = "to", required = false) @DateTimeFormat(iso = ISO.DATE_TIME) Date to) {
+		return ticketService.findSummary(TicketFilters.summaryUserId(userRequest, userId), assignedUserId, from, to)
+				.map(ReactiveTicketController::ok);
+	}
+	
+	@GetMapping({ "cursor/{count}", "cursor/{count}/{number}/{title}/{status}/{priority}/{assigned}",
+			"slice/{page}/{count}", "slice/{page}/{count}/{number}/{title}/{status}/{priority}/{assigned}",
+			"export", "{id}/attachment", "cache/stats" })
+	public Mono<ResponseEntity<Response<String>>> notPortedGet(ServerHttpRequest request) {
+		return Mono.just(notPorted(request));
+	}
+	
+	@PatchMapping("{id}")
+	public Mono<ResponseEntity<Response<String>>> notPortedPatch(ServerHttpRequest request) {
+		return Mono.just(notPorted(request));
+	}
+	
+	@PostMapping("import")
+	public Mono<ResponseEntity<Response<String>>> notPortedPost(ServerHttpRequest request) {
+		return Mono.just(notPorted(request));
+	}
+	
+	@PutMapping("status")
+	public Mono<ResponseEntity<Response<String>>> notPortedPut(ServerHttpRequest request) {
+		return Mono.just(notPorted(request));
+	}
+	
+	static <T> ResponseEntity<Response<T>> notPorted(ServerHttpRequest request) {
+		return error(HttpStatus.NOT_IMPLEMENTED, request.getMethodValue() + " " + request.getPath().value()
+				+ " is not available with the reactive profile");
+	}
+	
+	private List<String> validateCreateTicket(Ticket ticket) {
+		List<String> errors = new ArrayList<String>();
+		if (ticket.getTitle() == null) {
+			errors.add("Title no information");
+		}
+		return errors;
+	}
+	
+	private List<String> validateUpdateTicket(Ticket ticket) {
+		List<String> errors = new ArrayList<String>();
+		if (ticket.getId() == null) {
+			errors.add("Id no information");
+		} else if (ticket.getTitle() == null) {
+			errors.add("Title no information");
+		}
+		return errors;
+	}
+	
+	static <T> ResponseEntity<Response<T>> ok(T data) {
+		Response<T> response = new Response<T>();
+		response.setData(data);
+		return ResponseEntity.ok(response);
+	}
+	
+	static <T> ResponseEntity<Response<T>> badRequest(String error) {
+		return error(HttpStatus.BAD_REQUEST, error);
+	}
+	
+	static <T> ResponseEntity<Response<T>> badRequest(List<String> errors) {
+		Response<T> response = new Response<T>();
+		response.getErrors().addAll(errors);
+		return ResponseEntity.badRequest().body(response);
+	}
+	
+	static <T> ResponseEntity<Response<T>> error(HttpStatus status, String error) {
+		Response<T> response = new Response<T>();
+		response.getErrors().add(error);
+		return ResponseEntity.status(status).body(response);
+	}
+
+}
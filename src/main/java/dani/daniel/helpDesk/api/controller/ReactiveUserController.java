@@ -0,0 +1,94 @@
+package dani.daniel.helpDesk.api.controller;
+
+import static dani.daniel.helpDesk.api.controller.ReactiveTicketController.badRequest;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Page;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import dani.daniel.helpDesk.api.User;
+import dani.daniel.helpDesk.api.response.Response;
+import dani.daniel.helpDesk.api.service.ReactiveUserService;
+import reactor.core.publisher.Mono;
+
+/**
+ * Routes of {@link UserController} served by WebFlux when the application
+ * runs as a reactive web application.
+ */
+@RestController
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+@RequestMapping("/api/user")
+@CrossOrigin(origins = "*")
+public class ReactiveUserController {
+	
+	@Autowired
+	private ReactiveUserService userService;
+	
+	@Autowired
+	private PasswordEncoder passwordEncoder;
+	
+	@PostMapping
+	@PreAuthorize("hasAnyRole('ADMIN')")
+	public Mono<ResponseEntity<Response<User>>> create(@RequestBody User user) {
+		if (user.getEmail() == null) {
+			return Mono.just(badRequest("Email no informaton"));
+		}
+		user.setPassword(passwordEncoder.encode(user.getPassword()));
+		return userService.createOrUpdate(user)
+				.map(ReactiveTicketController::ok)
+				.onErrorResume(DuplicateKeyException.class, e -> Mono.just(badRequest("Email already exist")))
+				.onErrorResume(e -> Mono.just(badRequest(e.getMessage())));
+	}
+	
+	@PutMapping
+	@PreAuthorize("hasAnyRole('ADMIN')")
+	public Mono<ResponseEntity<Response<User>>> update(@RequestBody User user) {
+		if (user.getId() == null) {
+			return Mono.just(badRequest("Id no information"));
+		}
+		if (user.getEmail() == null) {
+			return Mono.just(badRequest("Email no information"));
+		}
+		user.setPassword(passwordEncoder.encode(user.getPassword()));
+		return userService.createOrUpdate(user)
+				.map(ReactiveTicketController::ok)
+				.onErrorResume(e -> Mono.just(badRequest(e.getMessage())));
+	}
+	
+	@GetMapping(value = "{id}")
+	@PreAuthorize("hasAnyRole('ADMIN')")
+	public Mono<ResponseEntity<Response<User>>> findById(@PathVariable("id") String id) {
+		return userService.findById(id)
+				.map(ReactiveTicketController::ok)
+				.defaultIfEmpty(badRequest("Register Not Found" + id));
+	}
+	
+	@DeleteMapping(value = "{id}")
+	@PreAuthorize("hasAnyRole('ADMIN')")
+	public Mono<ResponseEntity<Response<String>>> delete(@PathVariable("id") String id) {
+		return userService.findById(id)
+				.flatMap(user -> userService.delete(id).thenReturn(ResponseEntity.ok(new Response<String>())))
+				.defaultIfEmpty(badRequest("Register Not Found" + id));
+	}
+	
+	@GetMapping(value = "{page}/{count}")
+	public Mono<ResponseEntity<Response<Page<User>>>> findAll(@PathVariable int page,
+															  @PathVariable int count) {
+		return userService.findAll(page, count).map(ReactiveTicketController::ok);
+	}
+
+}
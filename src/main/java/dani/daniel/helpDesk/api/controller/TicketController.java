@@ -1,58 +1,108 @@
 package dani.daniel.helpDesk.api.controller;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Date;
-import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
-import java.util.Random;
+import java.util.zip.GZIPOutputStream;
 
 import javax.servlet.http.HttpServletRequest;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.validation.BeanPropertyBindingResult;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.ObjectError;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.context.request.WebRequest;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import dani.daniel.helpDesk.api.Attachment;
 import dani.daniel.helpDesk.api.ChangeStatus;
 import dani.daniel.helpDesk.api.Ticket;
 import dani.daniel.helpDesk.api.User;
+import dani.daniel.helpDesk.api.dto.CacheStatistics;
+import dani.daniel.helpDesk.api.dto.CursorPage;
 import dani.daniel.helpDesk.api.dto.Summary;
-import dani.daniel.helpDesk.api.enums.ProfileEnum;
+import dani.daniel.helpDesk.api.dto.TicketFilter;
+import dani.daniel.helpDesk.api.dto.TicketImportResult;
+import dani.daniel.helpDesk.api.dto.TicketStatusChange;
+import dani.daniel.helpDesk.api.dto.TicketStatusResult;
+import dani.daniel.helpDesk.api.enums.ExportFormatEnum;
 import dani.daniel.helpDesk.api.enums.StatusEnum;
 import dani.daniel.helpDesk.api.response.Response;
-import dani.daniel.helpDesk.api.security.jwt.JwtTokenUtil;
+import dani.daniel.helpDesk.api.security.model.AuthenticatedUser;
+import dani.daniel.helpDesk.api.service.AttachmentService;
+import dani.daniel.helpDesk.api.service.StatusTransitionException;
+import dani.daniel.helpDesk.api.service.TicketExportService;
 import dani.daniel.helpDesk.api.service.TicketService;
-import dani.daniel.helpDesk.api.service.UserService;
 
 @RestController
+@ConditionalOnWebApplication(type = Type.SERVLET)
 @RequestMapping("api/ticket")
 @CrossOrigin(origins = "*")
 public class TicketController {
 	
+	static final String APPROXIMATE_TOTAL_HEADER = "X-Approximate-Total";
+	
+	static final String MERGE_PATCH_JSON_VALUE = "application/merge-patch+json";
+	
+	static final String NDJSON_VALUE = "application/x-ndjson";
+	
 	@Autowired
 	private TicketService ticketService;
 	
 	@Autowired
-	private UserService userService;
+	private AttachmentService attachmentService;
+	
+	@Autowired
+	private TicketExportService ticketExportService;
 	
 	@Autowired
-	private JwtTokenUtil jwtTokenUtil;
+	private ObjectMapper objectMapper;
+	
+	@Value("${ticket.import.chunk-size:1000}")
+	private int importChunkSize;
 	
 	@PostMapping
 	@PreAuthorize("hasAnyRole('CUSTOMER')")
-	public ResponseEntity<Response<Ticket>> create(HttpServletRequest request,
+	public ResponseEntity<Response<Ticket>> create(AuthenticatedUser userRequest,
 													@RequestBody Ticket ticket,
 													BindingResult result) {
 		Response<Ticket> response = new Response<>();
@@ -63,9 +113,10 @@ public class TicketController {
 				return ResponseEntity.badRequest().body(response);
 			}
 			ticket.setStatus(StatusEnum.getStatus("New"));
-			ticket.setUser(userFromRequest(request));
+			ticket.setUser(userRequest.toUser());
 			ticket.setDate(new Date());
-			ticket.setNumber(generateNumber());
+			ticket.setNumber(ticketService.generateNumber());
+			ticket.setAttachment(null);
 			Ticket ticketPersisted = ticketService.createOrUpdate(ticket);
 			response.setData(ticketPersisted);
 		} catch (Exception e) {
@@ -76,6 +127,56 @@ public class TicketController {
 		
 	}
 
+	/**
+	 * Creates one ticket per NDJSON line. Rows are validated like a single
+	 * create and written in unordered bulk inserts of {@code ticket.import.chunk-size}.
+	 */
+	@PostMapping(value = "import", consumes = NDJSON_VALUE)
+	@PreAuthorize("hasAnyRole('CUSTOMER')")
+	public ResponseEntity<Response<List<TicketImportResult>>> importTickets(AuthenticatedUser userRequest,
+																			HttpServletRequest request) {
+		Response<List<TicketImportResult>> response = new Response<>();
+		List<TicketImportResult> results = new ArrayList<>();
+		List<Ticket> chunk = new ArrayList<>(importChunkSize);
+		List<Integer> chunkLines = new ArrayList<>(importChunkSize);
+		User user = userRequest.toUser();
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8))) {
+			String line;
+			int lineNumber = 0;
+			while ((line = reader.readLine()) != null) {
+				lineNumber++;
+				if (line.trim().isEmpty()) {
+					continue;
+				}
+				Ticket ticket;
+				try {
+					ticket = objectMapper.readValue(line, Ticket.class);
+				} catch (JsonProcessingException e) {
+					results.add(importResult(lineNumber, TicketImportResult.failed(e.getOriginalMessage())));
+					continue;
+				}
+				BindingResult result = new BeanPropertyBindingResult(ticket, "ticket");
+				validateCreateTicket(ticket, result);
+				if (result.hasErrors()) {
+					results.add(importResult(lineNumber, TicketImportResult.failed(result.getAllErrors().get(0).getDefaultMessage())));
+					continue;
+				}
+				chunk.add(ticket);
+				chunkLines.add(lineNumber);
+				if (chunk.size() >= importChunkSize) {
+					importChunk(chunk, chunkLines, user, results);
+				}
+			}
+			importChunk(chunk, chunkLines, user, results);
+		} catch (IOException e) {
+			response.getErrors().add(e.getMessage());
+			return ResponseEntity.badRequest().body(response);
+		}
+		response.setData(results);
+		return ResponseEntity.ok(response);
+		
+	}
+	
 	@PutMapping
 	@PreAuthorize("hasAnyRole('CUSTOMER')")
 	public ResponseEntity<Response<Ticket>> update(HttpServletRequest request,
@@ -96,12 +197,19 @@ public class TicketController {
 			ticket.setUser(ticketCurrent.get().getUser());
 			ticket.setDate(ticketCurrent.get().getDate());
 			ticket.setNumber(ticketCurrent.get().getNumber());
+			ticket.setAttachment(ticket.getImage() == null ? ticketCurrent.get().getAttachment() : null);
 			
 			if(ticketCurrent.get().getAssignedUser() != null) {
 				ticket.setAssignedUser(ticketCurrent.get().getAssignedUser());
 			}
+			if(ticket.getVersion() == null) {
+				ticket.setVersion(ticketCurrent.get().getVersion());
+			}
 			Ticket ticketPersisted = ticketService.createOrUpdate(ticket);
 			response.setData(ticketPersisted);
+		} catch (OptimisticLockingFailureException e) {
+			response.getErrors().add(e.getMessage());
+			return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
 		} catch (Exception e) {
 			response.getErrors().add(e.getMessage());
 			return ResponseEntity.badRequest().body(response);
@@ -110,28 +218,70 @@ public class TicketController {
 
 	}
 	
+	@PatchMapping(value = "{id}", consumes = { MERGE_PATCH_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE })
+	@PreAuthorize("hasAnyRole('CUSTOMER')")
+	public ResponseEntity<Response<Ticket>> patch(@PathVariable("id") String id,
+												  @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+												  @RequestBody Map<String, Object> patch) {
+		Response<Ticket> response = new Response<Ticket>();
+		try {
+			Ticket ticketPersisted = ticketService.patch(id, patch, parseVersion(ifMatch));
+			response.setData(ticketPersisted);
+		} catch (OptimisticLockingFailureException e) {
+			response.getErrors().add(e.getMessage());
+			return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(response);
+		} catch (IllegalArgumentException | NoSuchElementException e) {
+			response.getErrors().add(e.getMessage());
+			return ResponseEntity.badRequest().body(response);
+		}
+		return ResponseEntity.ok()
+				.eTag(String.valueOf(response.getData().getVersion()))
+				.body(response);
+		
+	}
 	
 	@GetMapping(value = "{id}")
 	@PreAuthorize("hasAnyRole('CUSTOMER', 'TECHNICIAN')")
-	public ResponseEntity<Response<Ticket>> findById(@PathVariable("id") String id) {
+	public ResponseEntity<Response<Ticket>> findById(@PathVariable("id") String id, WebRequest request) {
 		Response<Ticket> response = new Response<Ticket>();
 
 		Optional<Ticket> ticket = ticketService.findById(id);
-		if(ticket.get() == null) {
+		if(!ticket.isPresent()) {
 			response.getErrors().add("Register not found id: " + id);
 			return ResponseEntity.badRequest().body(response);
 		}
-		List<ChangeStatus> changes =  new ArrayList<ChangeStatus>();
-		Iterable<ChangeStatus> changesCurrent =  ticketService.listChangeStatus(ticket.get().getId());
-		for(Iterator<ChangeStatus> iterator =  changes.iterator(); iterator.hasNext();) {
-			ChangeStatus changeStatus = iterator.next();
-			changeStatus.setTicket(null);
-			changes.add(changeStatus);
+		// the history count catches rows written behind the status change, on any node
+		String etag = "\"" + ticket.get().getVersion() + "-" + ticketService.countChangeStatus(id) + "\"";
+		if(request.checkNotModified(etag)) {
+			return notModified(etag);
 		}
+		List<ChangeStatus> changes = ticketService.listChangeStatus(ticket.get().getId());
 		ticket.get().setChanges(changes);
 		response.setData(ticket.get());
 		
-		return ResponseEntity.ok(response);
+		return revalidated(etag).body(response);
+	}
+	
+	@GetMapping(value = "{id}/attachment")
+	@PreAuthorize("hasAnyRole('CUSTOMER', 'TECHNICIAN')")
+	public ResponseEntity<Resource> downloadAttachment(@PathVariable("id") String id, WebRequest request) {
+		Attachment attachment = ticketService.findAttachment(id);
+		if(attachment == null) {
+			return ResponseEntity.notFound().build();
+		}
+		String etag = "\"" + attachment.getId() + "\"";
+		if(request.checkNotModified(etag)) {
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+		}
+		Resource resource = attachmentService.load(attachment);
+		if(resource == null) {
+			return ResponseEntity.notFound().build();
+		}
+		return ResponseEntity.ok()
+				.eTag(etag)
+				.contentType(MediaType.parseMediaType(attachment.getContentType()))
+				.header(HttpHeaders.ACCEPT_RANGES, "bytes")
+				.body(resource);
 	}
 	
 	@DeleteMapping(value = "{id}")
@@ -150,63 +300,139 @@ public class TicketController {
 	
 	@GetMapping(value = "{page}/{count}")
 	@PreAuthorize("hasAnyRole('CUSTOMER', 'TECHNICIAN')")
-	public ResponseEntity<Response<Page<Ticket>>> findAll(HttpServletRequest request, 
+	public ResponseEntity<Response<Page<Ticket>>> findAll(AuthenticatedUser userRequest, 
 													@PathVariable int page,
-													@PathVariable int count) {
+													@PathVariable int count,
+													@RequestParam(value = "fields", required = false) String fields,
+													WebRequest request) {
 		
+		String etag = scopedTag("list", userRequest);
+		if(request.checkNotModified(etag)) {
+			return notModified(etag);
+		}
 		Response<Page<Ticket>> response = new Response<Page<Ticket>>();
-		Page<Ticket> tickets = null;
-		User userRequest = userFromRequest(request);
-		if(userRequest.getProfile().equals(ProfileEnum.ROLE_TECHNICIAN)) {
-			tickets = ticketService.listTicket(page, count);
-		} else if(userRequest.getProfile().equals(ProfileEnum.ROLE_CUSTOMER)) {
-			tickets = ticketService.findByCurrentUser(page, count, userRequest.getId());
-		}
-		response.setData(tickets);
-		
-		return ResponseEntity.ok(response);
+		try {
+			response.setData(ticketService.findByFilter(TicketFilters.listFilter(userRequest, fields), page, count));
+		} catch (IllegalArgumentException e) {
+			response.getErrors().add(e.getMessage());
+			return ResponseEntity.badRequest().body(response);
+		}
+		return revalidated(etag).body(response);
 		
 	}
 	
 	@GetMapping("{page}/{count}/{number}/{title}/{status}/{priority}/{assigned}")
 	@PreAuthorize("hasAnyRole('CUSTOMER', 'TECHNICIAN')")
-	public ResponseEntity<Response<Page<Ticket>>> findByParams(HttpServletRequest request,
+	public ResponseEntity<Response<Page<Ticket>>> findByParams(AuthenticatedUser userRequest,
 																@PathVariable("page") int page,
 																@PathVariable("count") int count,
 																@PathVariable("number") Integer number,
 																@PathVariable("title") String title,
 																@PathVariable("status") String status,
 																@PathVariable("priority") String priority,
-																@PathVariable("assigned") boolean assigned) {
-		
-		title = title.equals("uninformed") ? null : title;
-		status = status.equals("uninformed") ?  null : status;
-		priority = status.equals("uninformed") ? null : priority;
+																@PathVariable("assigned") boolean assigned,
+																@RequestParam(value = "text", required = false) String text,
+																@RequestParam(value = "fields", required = false) String fields) {
 		
 		Response<Page<Ticket>> response = new Response<Page<Ticket>>();
-		Page<Ticket> tickets = null;
-		if(number > 0) {
-			tickets = ticketService.findByNumber(page, count, number);
-		} else {
-			User userRequest = userFromRequest(request);
-			if(userRequest.getProfile().equals(ProfileEnum.ROLE_TECHNICIAN)) {
-				if(assigned) {
-					tickets = ticketService.findByParametersAndAssignedUser(page, count, title, status, priority, userRequest.getId());
-				} else {
-					tickets = ticketService.findByParameters(page, count, title, status, priority);
-				}
-			} else if (userRequest.getProfile().equals(ProfileEnum.ROLE_CUSTOMER)) {
-				tickets = ticketService.findByParametersAndCurrentUser(page, count, title, status, priority, userRequest.getId());
-			}
+		try {
+			TicketFilter filter = TicketFilters.searchFilter(userRequest, number, title, status, priority, assigned, text, fields);
+			response.setData(ticketService.findByFilter(filter, page, count));
+		} catch (IllegalArgumentException e) {
+			response.getErrors().add(e.getMessage());
+			return ResponseEntity.badRequest().body(response);
 		}
-		response.setData(tickets);
 		return ResponseEntity.ok(response);
 		
 	}
 	
+	@GetMapping("cursor/{count}")
+	@PreAuthorize("hasAnyRole('CUSTOMER', 'TECHNICIAN')")
+	public ResponseEntity<Response<CursorPage<Ticket>>> findAllByCursor(AuthenticatedUser userRequest,
+																		@PathVariable("count") int count,
+																		@RequestParam(value = "cursor", required = false) String cursor,
+																		@RequestParam(value = "fields", required = false) String fields) {
+		Response<CursorPage<Ticket>> response = new Response<CursorPage<Ticket>>();
+		try {
+			response.setData(ticketService.findByCursor(TicketFilters.listFilter(userRequest, fields), cursor, count));
+		} catch (IllegalArgumentException e) {
+			response.getErrors().add(e.getMessage());
+			return ResponseEntity.badRequest().body(response);
+		}
+		return ResponseEntity.ok(response);
+		
+	}
+	
+	@GetMapping("cursor/{count}/{number}/{title}/{status}/{priority}/{assigned}")
+	@PreAuthorize("hasAnyRole('CUSTOMER', 'TECHNICIAN')")
+	public ResponseEntity<Response<CursorPage<Ticket>>> findByParamsAndCursor(AuthenticatedUser userRequest,
+																			@PathVariable("count") int count,
+																			@PathVariable("number") Integer number,
+																			@PathVariable("title") String title,
+																			@PathVariable("status") String status,
+																			@PathVariable("priority") String priority,
+																			@PathVariable("assigned") boolean assigned,
+																			@RequestParam(value = "cursor", required = false) String cursor,
+																			@RequestParam(value = "fields", required = false) String fields) {
+		Response<CursorPage<Ticket>> response = new Response<CursorPage<Ticket>>();
+		try {
+			TicketFilter filter = TicketFilters.searchFilter(userRequest, number, title, status, priority, assigned, null, fields);
+			response.setData(ticketService.findByCursor(filter, cursor, count));
+		} catch (IllegalArgumentException e) {
+			response.getErrors().add(e.getMessage());
+			return ResponseEntity.badRequest().body(response);
+		}
+		return ResponseEntity.ok(response);
+		
+	}
+	
+	@GetMapping("slice/{page}/{count}")
+	@PreAuthorize("hasAnyRole('CUSTOMER', 'TECHNICIAN')")
+	public ResponseEntity<Response<Slice<Ticket>>> findAllBySlice(AuthenticatedUser userRequest,
+																@PathVariable("page") int page,
+																@PathVariable("count") int count,
+																@RequestParam(value = "total", defaultValue = "false") boolean total,
+																@RequestParam(value = "fields", required = false) String fields) {
+		TicketFilter filter;
+		try {
+			filter = TicketFilters.listFilter(userRequest, fields);
+		} catch (IllegalArgumentException e) {
+			Response<Slice<Ticket>> response = new Response<Slice<Ticket>>();
+			response.getErrors().add(e.getMessage());
+			return ResponseEntity.badRequest().body(response);
+		}
+		return sliceResponse(filter, page, count, total);
+		
+	}
+	
+	@GetMapping("slice/{page}/{count}/{number}/{title}/{status}/{priority}/{assigned}")
+	@PreAuthorize("hasAnyRole('CUSTOMER', 'TECHNICIAN')")
+	public ResponseEntity<Response<Slice<Ticket>>> findByParamsAndSlice(AuthenticatedUser userRequest,
+																		@PathVariable("page") int page,
+																		@PathVariable("count") int count,
+																		@PathVariable("number") Integer number,
+																		@PathVariable("title") String title,
+																		@PathVariable("status") String status,
+																		@PathVariable("priority") String priority,
+																		@PathVariable("assigned") boolean assigned,
+																		@RequestParam(value = "text", required = false) String text,
+																		@RequestParam(value = "total", defaultValue = "false") boolean total,
+																		@RequestParam(value = "fields", required = false) String fields) {
+		TicketFilter filter;
+		try {
+			filter = TicketFilters.searchFilter(userRequest, number, title, status, priority, assigned, text, fields);
+		} catch (IllegalArgumentException e) {
+			Response<Slice<Ticket>> response = new Response<Slice<Ticket>>();
+			response.getErrors().add(e.getMessage());
+			return ResponseEntity.badRequest().body(response);
+		}
+		return sliceResponse(filter, page, count, total);
+		
+	}
+	
 	@PutMapping("{id}/{status}")
 	@PreAuthorize("hasAnyRole('CUSTOMER', 'TECHNICIAN')")
-	public ResponseEntity<Response<Ticket>> changeStatus(HttpServletRequest request,
+	public ResponseEntity<Response<Ticket>> changeStatus(AuthenticatedUser userRequest,
 														 @PathVariable("id") String id,
 														 @PathVariable("status") String status,
 														 @RequestBody Ticket ticket,
@@ -217,65 +443,217 @@ public class TicketController {
 			result.getAllErrors().forEach(error -> response.getErrors().add(error.getDefaultMessage()));
 			return ResponseEntity.badRequest().body(response);
 		}
-		Optional<Ticket> ticketCurrent = ticketService.findById(id);
-		ticketCurrent.get().setStatus(StatusEnum.getStatus(status));
-		if(status.equals("Assigned")) {
-			ticketCurrent.get().setAssignedUser(userFromRequest(request));
-		}
-		Ticket ticketPersisted = ticketService.createOrUpdate(ticketCurrent.get());
-		ChangeStatus changeStatus = new ChangeStatus();
-		changeStatus.setUserChange(userFromRequest(request));
-		changeStatus.setDateChangeStatus(new Date());
-		changeStatus.setStatus(StatusEnum.getStatus(status));
-		changeStatus.setTicket(ticketPersisted);
-		ticketService.createChangeStatus(changeStatus);
-		response.setData(ticketPersisted);
+		try {
+			Ticket ticketPersisted = ticketService.changeStatus(id, StatusEnum.getStatus(status), userRequest.toUser());
+			response.setData(ticketPersisted);
+		} catch (StatusTransitionException e) {
+			response.getErrors().add(e.getMessage());
+			return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+		} catch (NoSuchElementException e) {
+			response.getErrors().add(e.getMessage());
+			return ResponseEntity.badRequest().body(response);
+		}
+		return ResponseEntity.ok(response);
+
+	}
+	
+	/**
+	 * Streams the tickets matching the search to the response as NDJSON or
+	 * CSV, gzipped when the client accepts it. The body is written after the
+	 * handler returns, so the export slot is released once it is written.
+	 */
+	@GetMapping("export")
+	@PreAuthorize("hasAnyRole('CUSTOMER', 'TECHNICIAN')")
+	public ResponseEntity<StreamingResponseBody> export(AuthenticatedUser userRequest,
+												 HttpServletRequest request,
+												 @RequestParam(value = "format", defaultValue = "ndjson") String format,
+												 @RequestParam(value = "number", defaultValue = "0") Integer number,
+												 @RequestParam(value = "title", defaultValue = "uninformed") String title,
+												 @RequestParam(value = "status", defaultValue = "uninformed") String status,
+												 @RequestParam(value = "priority", defaultValue = "uninformed") String priority,
+												 @RequestParam(value = "assigned", defaultValue = "false") boolean assigned,
+												 @RequestParam(value = "text", required = false) String text,
+												 @RequestParam(value = "fields", required = false) String fields) {
+		ExportFormatEnum exportFormat;
+		TicketFilter filter;
+		try {
+			exportFormat = ExportFormatEnum.getFormat(format);
+			filter = TicketFilters.searchFilter(userRequest, number, title, status, priority, assigned, text, fields);
+		} catch (IllegalArgumentException e) {
+			return exportError(HttpStatus.BAD_REQUEST, e.getMessage());
+		}
+		if (!ticketExportService.tryAcquire()) {
+			return exportError(HttpStatus.TOO_MANY_REQUESTS, "Too many exports running, try again later");
+		}
+		boolean gzip = acceptsGzip(request);
+		ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+				.contentType(MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8"))
+				.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"tickets." + exportFormat.name() + "\"")
+				.varyBy(HttpHeaders.ACCEPT_ENCODING);
+		if (gzip) {
+			builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+		}
+		return builder.body(out -> {
+			try {
+				OutputStream body = gzip ? new GZIPOutputStream(out, 8192) : out;
+				ticketExportService.export(filter, exportFormat, body);
+				body.close();
+			} finally {
+				ticketExportService.release();
+			}
+		});
+		
+	}
+	
+	private ResponseEntity<StreamingResponseBody> exportError(HttpStatus status, String error) {
+		Response<Void> response = new Response<>();
+		response.getErrors().add(error);
+		return ResponseEntity.status(status)
+				.contentType(MediaType.APPLICATION_JSON)
+				.body(out -> objectMapper.writeValue(out, response));
+	}
+	
+	/**
+	 * Moves every listed ticket to the same status with one bulk write, answering
+	 * an outcome per id; tickets not allowed to move are reported, not changed.
+	 * Ids are not scoped to the caller, so only technicians may use it.
+	 */
+	@PutMapping("status")
+	@PreAuthorize("hasAnyRole('TECHNICIAN')")
+	public ResponseEntity<Response<List<TicketStatusResult>>> changeStatus(AuthenticatedUser userRequest,
+																		   @RequestBody TicketStatusChange change,
+																		   BindingResult result) {
+		Response<List<TicketStatusResult>> response = new Response<>();
+		validateChangeStatus(change, result);
+		if(result.hasErrors()) {
+			result.getAllErrors().forEach(error -> response.getErrors().add(error.getDefaultMessage()));
+			return ResponseEntity.badRequest().body(response);
+		}
+		try {
+			response.setData(ticketService.changeStatus(new LinkedHashSet<>(change.getIds()),
+					StatusEnum.getStatus(change.getStatus()), change.getAssignedUserId(), userRequest.toUser()));
+		} catch (IllegalArgumentException e) {
+			response.getErrors().add(e.getMessage());
+			return ResponseEntity.badRequest().body(response);
+		}
 		return ResponseEntity.ok(response);
 
 	}
 	
 	@GetMapping(value = "/summary")
-	public ResponseEntity<Response<Summary>> findSummary() {
+	@PreAuthorize("hasAnyRole('CUSTOMER', 'TECHNICIAN')")
+	public ResponseEntity<Response<Summary>> findSummary(AuthenticatedUser userRequest,
+														@RequestParam(value = "user", required = false) String userId,
+														@RequestParam(value = "assigned", required = false) String assignedUserId,
+														@RequestParam(value = "from", required = false) @DateTimeFormat(iso = ISO.DATE_TIME) Date from,
+														@RequestParam(value = "to", required = false) @DateTimeFormat(iso = ISO.DATE_TIME) Date to,
+														WebRequest request) {
+		String etag = scopedTag("summary", userRequest);
+		if(request.checkNotModified(etag)) {
+			return notModified(etag);
+		}
 		Response<Summary> response = new Response<>();
-		Summary summary = new Summary();
-		Integer amountNew = 0;
-		Integer amountResolved = 0;
-		Integer amountApproved = 0;
-		Integer amountDisapproved = 0;
-		Integer amountAssigned = 0;
-		Integer amountClosed = 0;
+		response.setData(ticketService.findSummary(TicketFilters.summaryUserId(userRequest, userId), assignedUserId, from, to));
+		return revalidated(etag).body(response);
 		
-		Iterable<Ticket> tickets = ticketService.findAll();
-		if(tickets != null) {
-			for(Iterator<Ticket> iterator = tickets.iterator(); iterator.hasNext();) {
-				Ticket ticket = iterator.next();
-				if(ticket.getStatus().equals(StatusEnum.New)) {
-					amountNew++;
-				}if(ticket.getStatus().equals(StatusEnum.Resolved)) {
-					amountResolved++;
-				}if(ticket.getStatus().equals(StatusEnum.Approved)) {
-					amountApproved++;
-				}if(ticket.getStatus().equals(StatusEnum.Disapproved)) {
-					amountDisapproved++;
-				}if(ticket.getStatus().equals(StatusEnum.Assigned)) {
-					amountAssigned++;
-				}if(ticket.getStatus().equals(StatusEnum.Closed)) {
-					amountClosed++;
-				}
-			}
-			summary.setAmountNew(amountNew);
-			summary.setAmountResolved(amountResolved);
-			summary.setAmountApproved(amountApproved);
-			summary.setAmountAssigned(amountAssigned);
-			summary.setAmountDisapproved(amountDisapproved);
-			summary.setAmountClosed(amountClosed);
-			response.setData(summary);
+	}
+	
+	@GetMapping(value = "cache/stats")
+	@PreAuthorize("hasAnyRole('ADMIN')")
+	public ResponseEntity<Response<CacheStatistics>> cacheStatistics() {
+		Response<CacheStatistics> response = new Response<CacheStatistics>();
+		response.setData(ticketService.cacheStatistics());
+		return ResponseEntity.ok(response);
+	}
+	
+	private ResponseEntity<Response<Slice<Ticket>>> sliceResponse(TicketFilter filter, int page, int count, boolean total) {
+		Response<Slice<Ticket>> response = new Response<Slice<Ticket>>();
+		if(page < 0 || count < 1) {
+			response.getErrors().add("Invalid page or count");
+			return ResponseEntity.badRequest().body(response);
+		}
+		response.setData(ticketService.findSlice(filter, page, count));
+		if(total) {
+			return ResponseEntity.ok()
+					.header(APPROXIMATE_TOTAL_HEADER, String.valueOf(ticketService.approximateCount(filter)))
+					.body(response);
 		}
 		return ResponseEntity.ok(response);
-		
 	}
 	
 	
+	
+	/**
+	 * Tags a list or summary with the collection change counter and the caller,
+	 * whose id and profile decide which tickets the response is scoped to.
+	 */
+	private String scopedTag(String name, AuthenticatedUser userRequest) {
+		return "\"" + name + "-" + ticketService.changeCount() + "-" + userRequest.getId()
+				+ "-" + userRequest.getProfile() + "\"";
+	}
+	
+	private <T> ResponseEntity<T> notModified(String etag) {
+		return revalidated(HttpStatus.NOT_MODIFIED, etag).build();
+	}
+	
+	private ResponseEntity.BodyBuilder revalidated(String etag) {
+		return revalidated(HttpStatus.OK, etag);
+	}
+	
+	private ResponseEntity.BodyBuilder revalidated(HttpStatus status, String etag) {
+		return ResponseEntity.status(status)
+				.eTag(etag)
+				.cacheControl(CacheControl.noCache().cachePrivate())
+				.varyBy(HttpHeaders.AUTHORIZATION);
+	}
+	
+	private boolean acceptsGzip(HttpServletRequest request) {
+		String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+		return acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+	}
+	
+	private void importChunk(List<Ticket> chunk, List<Integer> chunkLines, User user, List<TicketImportResult> results) {
+		List<TicketImportResult> imported = ticketService.importTickets(chunk, user);
+		for (int i = 0; i < imported.size(); i++) {
+			results.add(importResult(chunkLines.get(i), imported.get(i)));
+		}
+		chunk.clear();
+		chunkLines.clear();
+	}
+	
+	private TicketImportResult importResult(int line, TicketImportResult result) {
+		result.setLine(line);
+		return result;
+	}
+	
+	private Long parseVersion(String ifMatch) {
+		if (ifMatch == null || ifMatch.isEmpty()) {
+			return null;
+		}
+		String tag = ifMatch.trim();
+		if (tag.startsWith("W/")) {
+			tag = tag.substring(2);
+		}
+		tag = tag.replace("\"", "");
+		// the tag of GET {id} is "<version>-<history count>"
+		if (tag.indexOf('-') > 0) {
+			tag = tag.substring(0, tag.indexOf('-'));
+		}
+		try {
+			return Long.valueOf(tag);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid If-Match: " + ifMatch);
+		}
+	}
+	
+	private void validateChangeStatus(TicketStatusChange change, BindingResult result) {
+		if (change.getIds() == null || change.getIds().isEmpty()) {
+			result.addError(new ObjectError("Ticket", "Ids no information"));
+			return ;
+		}
+		validateChangeStatus(change.getIds().get(0), change.getStatus(), result);
+	}
+	
 	private void validateChangeStatus(String id, String status, BindingResult result) {
 		if (id == null || id.equals("")) {
 			result.addError(new ObjectError("Ticket", "Id no information"));
@@ -285,6 +663,10 @@ public class TicketController {
 			result.addError(new ObjectError("Ticket", "Status no information"));
 			return ;
 		}
+		if (!StatusEnum.isValid(status)) {
+			result.addError(new ObjectError("Ticket", "Status invalid"));
+			return ;
+		}
 
 	}
 																
@@ -309,17 +691,5 @@ public class TicketController {
 
 	}
 	
-	private User userFromRequest (HttpServletRequest request) {
-		String token = request.getHeader("Authorization");
-		String email =  jwtTokenUtil.getUsernameFromToken(token);
-		return userService.findByEmail(email);
-
-	}
-	
-	private Integer generateNumber() {
-		Random random = new Random();
-		return random.nextInt(9999);
-
-	}
 
 }
@@ -0,0 +1,84 @@
+package dani.daniel.helpDesk.api.controller;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import dani.daniel.helpDesk.api.dto.TicketFields;
+import dani.daniel.helpDesk.api.dto.TicketFilter;
+import dani.daniel.helpDesk.api.enums.PriorityEnum;
+import dani.daniel.helpDesk.api.enums.ProfileEnum;
+import dani.daniel.helpDesk.api.enums.StatusEnum;
+import dani.daniel.helpDesk.api.security.model.AuthenticatedUser;
+
+/**
+ * Builds the {@link TicketFilter} of the list and search routes, shared by the
+ * servlet and reactive ticket controllers.
+ */
+final class TicketFilters {
+	
+	private TicketFilters() {
+		
+	}
+	
+	static TicketFilter listFilter(AuthenticatedUser userRequest, String fields) {
+		TicketFilter filter = new TicketFilter();
+		filter.setFields(TicketFields.parse(fields));
+		if(userRequest.getProfile().equals(ProfileEnum.ROLE_CUSTOMER)) {
+			filter.setUserId(userRequest.getId());
+		}
+		return filter;
+	}
+	
+	/**
+	 * Customers only see the summary of their own tickets, whatever user they ask for.
+	 */
+	static String summaryUserId(AuthenticatedUser userRequest, String userId) {
+		if(userRequest.getProfile().equals(ProfileEnum.ROLE_CUSTOMER)) {
+			return userRequest.getId();
+		}
+		return userId;
+	}
+	
+	/**
+	 * Customers are scoped to their own tickets on every search, a search by
+	 * number included.
+	 */
+	static TicketFilter searchFilter(AuthenticatedUser userRequest, Integer number, String title, String status,
+			String priority, boolean assigned, String text, String fields) {
+		TicketFilter filter = new TicketFilter();
+		filter.setFields(TicketFields.parse(fields));
+		if(userRequest.getProfile().equals(ProfileEnum.ROLE_CUSTOMER)) {
+			filter.setUserId(userRequest.getId());
+		}
+		if(number > 0) {
+			filter.setNumber(number);
+			return filter;
+		}
+		filter.setText(text);
+		filter.setTitle(title.equals("uninformed") ? null : title);
+		filter.setStatus(status.equals("uninformed") ? null : parseList(StatusEnum.class, status));
+		filter.setPriority(priority.equals("uninformed") ? null : parseList(PriorityEnum.class, priority));
+		if(userRequest.getProfile().equals(ProfileEnum.ROLE_TECHNICIAN) && assigned) {
+			filter.setAssignedUserId(userRequest.getId());
+		}
+		return filter;
+	}
+	
+	static <E extends Enum<E>> List<E> parseList(Class<E> type, String values) {
+		List<E> parsed = new ArrayList<E>();
+		for (String value : values.split(",")) {
+			E match = null;
+			for (E constant : type.getEnumConstants()) {
+				if (constant.name().equalsIgnoreCase(value.trim())) {
+					match = constant;
+				}
+			}
+			if (match == null) {
+				throw new IllegalArgumentException("Invalid " + type.getSimpleName() + ": " + value);
+			}
+			parsed.add(match);
+		}
+		return parsed;
+	}
+
+}
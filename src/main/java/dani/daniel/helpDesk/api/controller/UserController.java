@@ -5,6 +5,8 @@ import java.util.Optional;
 import javax.servlet.http.HttpServletRequest;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.Page;
 import org.springframework.http.ResponseEntity;
@@ -23,10 +25,12 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import dani.daniel.helpDesk.api.User;
+import dani.daniel.helpDesk.api.dto.CacheStatistics;
 import dani.daniel.helpDesk.api.response.Response;
 import dani.daniel.helpDesk.api.service.UserService;
 
 @RestController
+@ConditionalOnWebApplication(type = Type.SERVLET)
 @RequestMapping("/api/user")
 @CrossOrigin(origins = "*")
 public class UserController {
@@ -140,5 +144,13 @@ public class UserController {
 		return ResponseEntity.ok(response);
 		
 	}
+	
+	@GetMapping(value = "cache/stats")
+	@PreAuthorize("hasAnyRole('ADMIN')")
+	public ResponseEntity<Response<CacheStatistics>> cacheStatistics() {
+		Response<CacheStatistics> response = new Response<CacheStatistics>();
+		response.setData(userService.cacheStatistics());
+		return ResponseEntity.ok(response);
+	}
 
 }
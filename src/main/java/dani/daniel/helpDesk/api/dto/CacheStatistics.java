@@ -0,0 +1,68 @@
+package dani.daniel.helpDesk.api.dto;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+public class CacheStatistics {
+	
+	private long size;
+	private long hitCount;
+	private long missCount;
+	private double hitRate;
+	private long loadCount;
+	private double averageLoadPenalty;
+	private long evictionCount;
+	
+	public CacheStatistics(long size, CacheStats stats) {
+		this.size = size;
+		this.hitCount = stats.hitCount();
+		this.missCount = stats.missCount();
+		this.hitRate = stats.hitRate();
+		this.loadCount = stats.loadCount();
+		this.averageLoadPenalty = stats.averageLoadPenalty();
+		this.evictionCount = stats.evictionCount();
+	}
+
+	public long getSize() {
+		return size;
+	}
+	public void setSize(long size) {
+		this.size = size;
+	}
+	public long getHitCount() {
+		return hitCount;
+	}
+	public void setHitCount(long hitCount) {
+		this.hitCount = hitCount;
+	}
+	public long getMissCount() {
+		return missCount;
+	}
+	public void setMissCount(long missCount) {
+		this.missCount = missCount;
+	}
+	public double getHitRate() {
+		return hitRate;
+	}
+	public void setHitRate(double hitRate) {
+		this.hitRate = hitRate;
+	}
+	public long getLoadCount() {
+		return loadCount;
+	}
+	public void setLoadCount(long loadCount) {
+		this.loadCount = loadCount;
+	}
+	public double getAverageLoadPenalty() {
+		return averageLoadPenalty;
+	}
+	public void setAverageLoadPenalty(double averageLoadPenalty) {
+		this.averageLoadPenalty = averageLoadPenalty;
+	}
+	public long getEvictionCount() {
+		return evictionCount;
+	}
+	public void setEvictionCount(long evictionCount) {
+		this.evictionCount = evictionCount;
+	}
+
+}
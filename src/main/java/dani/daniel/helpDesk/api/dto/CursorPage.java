@@ -0,0 +1,36 @@
+package dani.daniel.helpDesk.api.dto;
+
+import java.util.List;
+
+public class CursorPage<T> {
+	
+	private List<T> content;
+	private String nextCursor;
+	private boolean hasNext;
+	
+	public CursorPage(List<T> content, String nextCursor) {
+		this.content = content;
+		this.nextCursor = nextCursor;
+		this.hasNext = nextCursor != null;
+	}
+
+	public List<T> getContent() {
+		return content;
+	}
+	public void setContent(List<T> content) {
+		this.content = content;
+	}
+	public String getNextCursor() {
+		return nextCursor;
+	}
+	public void setNextCursor(String nextCursor) {
+		this.nextCursor = nextCursor;
+	}
+	public boolean isHasNext() {
+		return hasNext;
+	}
+	public void setHasNext(boolean hasNext) {
+		this.hasNext = hasNext;
+	}
+
+}
@@ -0,0 +1,44 @@
+package dani.daniel.helpDesk.api.dto;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Ticket fields a list request may ask for with {@code fields=}. Lists read
+ * only {@link #LIST_VIEW} by default; {@code fields=*} returns whole tickets.
+ */
+public final class TicketFields {
+	
+	public static final String ALL = "*";
+	
+	public static final Set<String> ALLOWED = Collections.unmodifiableSet(new LinkedHashSet<String>(Arrays.asList(
+			"id", "number", "title", "status", "priority", "date", "user", "assignedUser", "description", "attachment")));
+	
+	public static final Set<String> LIST_VIEW = Collections.unmodifiableSet(new LinkedHashSet<String>(Arrays.asList(
+			"id", "number", "title", "status", "priority", "date", "assignedUser")));
+
+	private TicketFields() {
+		
+	}
+	
+	public static Set<String> parse(String fields) {
+		if (fields == null || fields.trim().isEmpty()) {
+			return LIST_VIEW;
+		}
+		if (fields.trim().equals(ALL)) {
+			return null;
+		}
+		Set<String> parsed = new LinkedHashSet<String>();
+		parsed.add("id");
+		for (String field : fields.split(",")) {
+			String name = field.trim();
+			if (!ALLOWED.contains(name)) {
+				throw new IllegalArgumentException("Invalid field: " + name);
+			}
+			parsed.add(name);
+		}
+		return parsed;
+	}
+}
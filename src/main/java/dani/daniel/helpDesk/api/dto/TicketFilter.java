@@ -0,0 +1,92 @@
+package dani.daniel.helpDesk.api.dto;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import dani.daniel.helpDesk.api.enums.PriorityEnum;
+import dani.daniel.helpDesk.api.enums.StatusEnum;
+
+public class TicketFilter {
+	
+	private Integer number;
+	private String title;
+	private String text;
+	private List<StatusEnum> status;
+	private List<PriorityEnum> priority;
+	private String userId;
+	private String assignedUserId;
+	private Set<String> fields;
+	
+
+	public Integer getNumber() {
+		return number;
+	}
+	public void setNumber(Integer number) {
+		this.number = number;
+	}
+	public String getTitle() {
+		return title;
+	}
+	public void setTitle(String title) {
+		this.title = title;
+	}
+	public String getText() {
+		return text;
+	}
+	public void setText(String text) {
+		this.text = text;
+	}
+	public List<StatusEnum> getStatus() {
+		return status;
+	}
+	public void setStatus(List<StatusEnum> status) {
+		this.status = status;
+	}
+	public List<PriorityEnum> getPriority() {
+		return priority;
+	}
+	public void setPriority(List<PriorityEnum> priority) {
+		this.priority = priority;
+	}
+	public String getUserId() {
+		return userId;
+	}
+	public void setUserId(String userId) {
+		this.userId = userId;
+	}
+	public String getAssignedUserId() {
+		return assignedUserId;
+	}
+	public void setAssignedUserId(String assignedUserId) {
+		this.assignedUserId = assignedUserId;
+	}
+
+	public Set<String> getFields() {
+		return fields;
+	}
+	public void setFields(Set<String> fields) {
+		this.fields = fields;
+	}
+	
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof TicketFilter)) {
+			return false;
+		}
+		TicketFilter other = (TicketFilter) obj;
+		return Objects.equals(number, other.number) && Objects.equals(title, other.title)
+				&& Objects.equals(text, other.text)
+				&& Objects.equals(status, other.status) && Objects.equals(priority, other.priority)
+				&& Objects.equals(userId, other.userId) && Objects.equals(assignedUserId, other.assignedUserId);
+	}
+	
+	@Override
+	public int hashCode() {
+		return Objects.hash(number, title, text, status, priority, userId, assignedUserId);
+	}
+
+}
@@ -0,0 +1,54 @@
+package dani.daniel.helpDesk.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+
+import dani.daniel.helpDesk.api.Ticket;
+
+@JsonInclude(Include.NON_NULL)
+public class TicketImportResult {
+	
+	private int line;
+	private String id;
+	private Integer number;
+	private String error;
+	
+	public static TicketImportResult created(Ticket ticket) {
+		TicketImportResult result = new TicketImportResult();
+		result.setId(ticket.getId());
+		result.setNumber(ticket.getNumber());
+		return result;
+	}
+	
+	public static TicketImportResult failed(String error) {
+		TicketImportResult result = new TicketImportResult();
+		result.setError(error);
+		return result;
+	}
+
+	public int getLine() {
+		return line;
+	}
+	public void setLine(int line) {
+		this.line = line;
+	}
+	public String getId() {
+		return id;
+	}
+	public void setId(String id) {
+		this.id = id;
+	}
+	public Integer getNumber() {
+		return number;
+	}
+	public void setNumber(Integer number) {
+		this.number = number;
+	}
+	public String getError() {
+		return error;
+	}
+	public void setError(String error) {
+		this.error = error;
+	}
+
+}
@@ -0,0 +1,30 @@
+package dani.daniel.helpDesk.api.dto;
+
+import java.util.List;
+
+public class TicketStatusChange {
+	
+	private List<String> ids;
+	private String status;
+	private String assignedUserId;
+
+	public List<String> getIds() {
+		return ids;
+	}
+	public void setIds(List<String> ids) {
+		this.ids = ids;
+	}
+	public String getStatus() {
+		return status;
+	}
+	public void setStatus(String status) {
+		this.status = status;
+	}
+	public String getAssignedUserId() {
+		return assignedUserId;
+	}
+	public void setAssignedUserId(String assignedUserId) {
+		this.assignedUserId = assignedUserId;
+	}
+
+}
@@ -0,0 +1,34 @@
+package dani.daniel.helpDesk.api.dto;
+
+import dani.daniel.helpDesk.api.enums.StatusEnum;
+
+/**
+ * State of one ticket read back after a bulk status change: its current
+ * status and, when that change moved it, the status it left.
+ */
+public class TicketStatusMove {
+	
+	private String id;
+	private StatusEnum status;
+	private StatusEnum from;
+	
+	public TicketStatusMove(String id, StatusEnum status, StatusEnum from) {
+		this.id = id;
+		this.status = status;
+		this.from = from;
+	}
+
+	public String getId() {
+		return id;
+	}
+	public StatusEnum getStatus() {
+		return status;
+	}
+	public StatusEnum getFrom() {
+		return from;
+	}
+	public boolean isMoved() {
+		return from != null;
+	}
+
+}
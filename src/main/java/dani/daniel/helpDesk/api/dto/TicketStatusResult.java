@@ -0,0 +1,40 @@
+package dani.daniel.helpDesk.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+
+import dani.daniel.helpDesk.api.enums.StatusEnum;
+
+@JsonInclude(Include.NON_NULL)
+public class TicketStatusResult {
+	
+	private String id;
+	private StatusEnum status;
+	private String error;
+	
+	public TicketStatusResult(String id, StatusEnum status, String error) {
+		this.id = id;
+		this.status = status;
+		this.error = error;
+	}
+
+	public String getId() {
+		return id;
+	}
+	public void setId(String id) {
+		this.id = id;
+	}
+	public StatusEnum getStatus() {
+		return status;
+	}
+	public void setStatus(StatusEnum status) {
+		this.status = status;
+	}
+	public String getError() {
+		return error;
+	}
+	public void setError(String error) {
+		this.error = error;
+	}
+
+}
@@ -0,0 +1,26 @@
+package dani.daniel.helpDesk.api.enums;
+
+public enum ExportFormatEnum {
+	ndjson("application/x-ndjson"),
+	csv("text/csv");
+	
+	private final String contentType;
+	
+	private ExportFormatEnum(String contentType) {
+		this.contentType = contentType;
+	}
+	
+	public String getContentType() {
+		return contentType;
+	}
+	
+	public static ExportFormatEnum getFormat(String format) {
+		for (ExportFormatEnum value : values()) {
+			if (value.name().equalsIgnoreCase(format)) {
+				return value;
+			}
+		}
+		throw new IllegalArgumentException("Invalid format: " + format);
+	}
+
+}
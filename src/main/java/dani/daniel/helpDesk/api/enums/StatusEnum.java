@@ -1,5 +1,8 @@
 package dani.daniel.helpDesk.api.enums;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 public enum StatusEnum {
 	New,
 	Assigned,
@@ -22,4 +25,25 @@ public enum StatusEnum {
 		
 
 	}
+	
+	public static boolean isValid(String status) {
+		for (StatusEnum value : values()) {
+			if (value.name().equals(status)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	public Set<StatusEnum> allowedFrom() {
+		switch (this) {
+		case Assigned : return EnumSet.of(New, Disapproved);
+		case Resolved : return EnumSet.of(Assigned);
+		case Approved : return EnumSet.of(Resolved);
+		case Disapproved : return EnumSet.of(Resolved);
+		case Closed : return EnumSet.of(Approved);
+		
+		default : return EnumSet.noneOf(StatusEnum.class);
+		}
+	}
 }
@@ -0,0 +1,43 @@
+package dani.daniel.helpDesk.api.filter;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Same CORS headers as {@link SimpleCORSFilter}, for the reactive stack.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class SimpleCORSWebFilter implements WebFilter {
+
+	@Override
+	public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+		ServerHttpResponse response = exchange.getResponse();
+		HttpHeaders headers = response.getHeaders();
+		headers.set("Access-Control-Allow-Origin", "*");
+		headers.set("Access-Control-Allow-Methods", "POST, GET, OPTIONS, DELETE, PUT, PATCH");
+		headers.set("Access-Control-Max-Age", "3600");
+		headers.set("Access-Control-Allow-Headers", "x-requested-with, authorization, Content-Type, Authorization, credential, X-XSRF-TOKEN, If-Match, If-None-Match");
+		headers.set("Access-Control-Expose-Headers", "X-Approximate-Total, ETag");
+
+		if (HttpMethod.OPTIONS.equals(exchange.getRequest().getMethod())) {
+			response.setStatusCode(HttpStatus.OK);
+			return response.setComplete();
+		}
+		return chain.filter(exchange);
+	}
+
+}
@@ -4,7 +4,6 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 
 import dani.daniel.helpDesk.api.ChangeStatus;
 
-public interface ChangeStatusRepository extends MongoRepository<ChangeStatus, String> {
+public interface ChangeStatusRepository extends MongoRepository<ChangeStatus, String>, ChangeStatusRepositoryCustom {
 
-	Iterable<ChangeStatus> findByTicketIdOrderByDateChangeStatusDesc(String ticketId);
 }
\ No newline at end of file
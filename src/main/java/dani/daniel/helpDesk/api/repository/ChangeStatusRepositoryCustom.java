@@ -0,0 +1,12 @@
+package dani.daniel.helpDesk.api.repository;
+
+import java.util.List;
+
+import dani.daniel.helpDesk.api.ChangeStatus;
+
+public interface ChangeStatusRepositoryCustom {
+
+	List<ChangeStatus> findHistoryByTicketId(String ticketId);
+	
+	long countHistoryByTicketId(String ticketId);
+}
@@ -0,0 +1,93 @@
+package dani.daniel.helpDesk.api.repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.mongodb.DBRef;
+
+import dani.daniel.helpDesk.api.ChangeStatus;
+import dani.daniel.helpDesk.api.User;
+import dani.daniel.helpDesk.api.enums.StatusEnum;
+
+/**
+ * Reads the history as raw documents, leaving out the ticket back-reference,
+ * so the eager {@code @DBRef}s of {@link ChangeStatus} are not resolved one by
+ * one. The users who made the changes are loaded with a single {@code $in}.
+ */
+public class ChangeStatusRepositoryImpl implements ChangeStatusRepositoryCustom {
+
+	@Autowired
+	private MongoTemplate mongoTemplate;
+
+	@Override
+	public List<ChangeStatus> findHistoryByTicketId(String ticketId) {
+		List<Document> documents = mongoTemplate.find(historyQuery(ticketId), Document.class,
+				mongoTemplate.getCollectionName(ChangeStatus.class));
+
+		Set<Object> userIds = new LinkedHashSet<Object>();
+		for (Document document : documents) {
+			DBRef userChange = document.get("userChange", DBRef.class);
+			if (userChange != null) {
+				userIds.add(userChange.getId());
+			}
+		}
+		Map<String, User> users = findUsers(userIds);
+
+		List<ChangeStatus> changes = new ArrayList<ChangeStatus>(documents.size());
+		for (Document document : documents) {
+			changes.add(toChangeStatus(document, users));
+		}
+		return changes;
+	}
+
+	@Override
+	public long countHistoryByTicketId(String ticketId) {
+		Query query = new Query(Criteria.where("ticket.$id").is(TicketRepositoryImpl.toObjectId(ticketId)));
+		return mongoTemplate.count(query, mongoTemplate.getCollectionName(ChangeStatus.class));
+	}
+
+	static Query historyQuery(String ticketId) {
+		Query query = new Query(Criteria.where("ticket.$id").is(TicketRepositoryImpl.toObjectId(ticketId)))
+				.with(Sort.by(Direction.DESC, "dateChangeStatus"));
+		query.fields().exclude("ticket");
+		return query;
+	}
+
+	static ChangeStatus toChangeStatus(Document document, Map<String, User> users) {
+		ChangeStatus changeStatus = new ChangeStatus();
+		changeStatus.setId(document.get("_id").toString());
+		changeStatus.setDateChangeStatus(document.getDate("dateChangeStatus"));
+		String status = document.getString("status");
+		changeStatus.setStatus(status != null ? StatusEnum.valueOf(status) : null);
+		DBRef userChange = document.get("userChange", DBRef.class);
+		if (userChange != null) {
+			changeStatus.setUserChange(users.get(userChange.getId().toString()));
+		}
+		return changeStatus;
+	}
+
+	private Map<String, User> findUsers(Set<Object> userIds) {
+		Map<String, User> users = new HashMap<String, User>();
+		if (userIds.isEmpty()) {
+			return users;
+		}
+		Query query = new Query(Criteria.where("_id").in(userIds));
+		query.fields().include("email").include("profile");
+		for (User user : mongoTemplate.find(query, User.class)) {
+			users.put(user.getId(), user);
+		}
+		return users;
+	}
+}
@@ -0,0 +1,160 @@
+package dani.daniel.helpDesk.api.repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Repository;
+
+import com.mongodb.DBRef;
+
+import dani.daniel.helpDesk.api.ChangeStatus;
+import dani.daniel.helpDesk.api.Ticket;
+import dani.daniel.helpDesk.api.User;
+import dani.daniel.helpDesk.api.dto.Summary;
+import dani.daniel.helpDesk.api.dto.TicketFilter;
+import dani.daniel.helpDesk.api.enums.StatusEnum;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Ticket queries for the reactive stack. Reactive Mongo cannot resolve
+ * {@code @DBRef}, so tickets are read as raw documents, the references are
+ * taken out before mapping and the users are loaded with one {@code $in}
+ * query per result, like {@link UserReferenceResolver} does on the servlet
+ * stack. Queries and updates are the same ones {@link TicketRepositoryImpl}
+ * and {@link ChangeStatusRepositoryImpl} run.
+ */
+@Repository
+public class ReactiveTicketRepository {
+	
+	@Autowired
+	private ReactiveMongoTemplate mongoTemplate;
+	
+	@Autowired
+	private TicketQueryBuilder ticketQueryBuilder;
+	
+	public Mono<Ticket> findById(String id) {
+		return resolve(find(new Query(Criteria.where("_id").is(id)))).next();
+	}
+	
+	public Mono<Page<Ticket>> findPageByFilter(TicketFilter filter, int page, int count) {
+		Pageable pageable = PageRequest.of(page, count, TicketRepositoryImpl.KEYSET_SORT);
+		Query query = ticketQueryBuilder.query(filter).with(pageable);
+		return resolve(find(query)).collectList()
+				.zipWith(mongoTemplate.count(ticketQueryBuilder.query(filter), Ticket.class))
+				.map(result -> new PageImpl<Ticket>(result.getT1(), pageable, result.getT2()));
+	}
+	
+	public Mono<Ticket> findStateById(String id) {
+		return mongoTemplate.findOne(TicketRepositoryImpl.stateById(id), Ticket.class);
+	}
+	
+	public Mono<Ticket> deleteAndGetState(String id) {
+		return mongoTemplate.findAndRemove(TicketRepositoryImpl.stateById(id), Ticket.class);
+	}
+	
+	public Mono<Ticket> save(Ticket ticket) {
+		return mongoTemplate.save(ticket);
+	}
+	
+	public Mono<Ticket> changeStatus(String id, StatusEnum status, User assignedUser) {
+		Query query = new Query(Criteria.where("_id").is(id).and("status").in(TicketRepositoryImpl.allowedFrom(status)));
+		query.fields().exclude("image");
+		Mono<Document> previous = mongoTemplate.findAndModify(query, TicketRepositoryImpl.statusUpdate(status, assignedUser),
+				FindAndModifyOptions.none(), Document.class, collection());
+		return resolve(previous.flux()).next();
+	}
+	
+	public Mono<List<ChangeStatus>> findHistoryByTicketId(String ticketId) {
+		return mongoTemplate.find(ChangeStatusRepositoryImpl.historyQuery(ticketId), Document.class,
+				mongoTemplate.getCollectionName(ChangeStatus.class))
+				.collectList()
+				.flatMap(documents -> {
+					Set<Object> userIds = new LinkedHashSet<Object>();
+					for (Document document : documents) {
+						addReference(document.get("userChange"), userIds);
+					}
+					return findUsers(userIds).map(users -> {
+						List<ChangeStatus> changes = new ArrayList<ChangeStatus>(documents.size());
+						for (Document document : documents) {
+							changes.add(ChangeStatusRepositoryImpl.toChangeStatus(document, users));
+						}
+						return changes;
+					});
+				});
+	}
+	
+	public Mono<Summary> summarize(String userId, String assignedUserId, Date from, Date to) {
+		return mongoTemplate.aggregate(TicketRepositoryImpl.summaryAggregation(userId, assignedUserId, from, to),
+				collection(), Document.class)
+				.collectList()
+				.map(TicketRepositoryImpl::toSummary);
+	}
+	
+	private Flux<Document> find(Query query) {
+		return mongoTemplate.find(query, Document.class, collection());
+	}
+	
+	private Flux<Ticket> resolve(Flux<Document> documents) {
+		return documents.collectList().flatMapMany(page -> {
+			Set<Object> userIds = new LinkedHashSet<Object>();
+			for (Document document : page) {
+				addReference(document.get("user"), userIds);
+				addReference(document.get("assignedUser"), userIds);
+			}
+			return findUsers(userIds).flatMapMany(loaded -> {
+				List<Ticket> tickets = new ArrayList<Ticket>(page.size());
+				for (Document document : page) {
+					tickets.add(toTicket(document, loaded));
+				}
+				return Flux.fromIterable(tickets);
+			});
+		});
+	}
+	
+	private Mono<Map<String, User>> findUsers(Set<Object> userIds) {
+		if (userIds.isEmpty()) {
+			return Mono.just(Collections.<String, User>emptyMap());
+		}
+		Query query = new Query(Criteria.where("_id").in(userIds));
+		query.fields().include("email").include("profile");
+		return mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(User.class))
+				.collectMap(user -> user.get("_id").toString(), user -> mongoTemplate.getConverter().read(User.class, user));
+	}
+	
+	private Ticket toTicket(Document document, Map<String, User> users) {
+		Document copy = new Document(document);
+		Object user = copy.remove("user");
+		Object assignedUser = copy.remove("assignedUser");
+		Ticket ticket = mongoTemplate.getConverter().read(Ticket.class, copy);
+		ticket.setUser(user instanceof DBRef ? users.get(((DBRef) user).getId().toString()) : null);
+		ticket.setAssignedUser(assignedUser instanceof DBRef ? users.get(((DBRef) assignedUser).getId().toString()) : null);
+		return ticket;
+	}
+	
+	private void addReference(Object reference, Set<Object> userIds) {
+		if (reference instanceof DBRef) {
+			userIds.add(((DBRef) reference).getId());
+		}
+	}
+	
+	private String collection() {
+		return mongoTemplate.getCollectionName(Ticket.class);
+	}
+
+}
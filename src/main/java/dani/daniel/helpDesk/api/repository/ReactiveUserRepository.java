@@ -0,0 +1,16 @@
+package dani.daniel.helpDesk.api.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+import dani.daniel.helpDesk.api.User;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveUserRepository extends ReactiveMongoRepository<User, String> {
+	
+	Mono<User> findByEmail(String email);
+	
+	Flux<User> findAllBy(Pageable pageable);
+
+}
@@ -0,0 +1,15 @@
+package dani.daniel.helpDesk.api.repository;
+
+import java.util.regex.Pattern;
+
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Component;
+
+@Component
+public class RegexTitleMatcher implements TitleMatcher {
+
+	@Override
+	public Criteria match(String title) {
+		return Criteria.where("title").regex(Pattern.quote(title), "i");
+	}
+}
@@ -0,0 +1,89 @@
+package dani.daniel.helpDesk.api.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
+import org.springframework.stereotype.Component;
+
+import dani.daniel.helpDesk.api.dto.TicketFilter;
+
+/**
+ * Turns a {@link TicketFilter} into Mongo criteria, adding only the filters
+ * that were supplied. Status and priority are exact matches so they can use
+ * the compound indexes; the title is left to the {@link TitleMatcher}. Free
+ * text goes through the {@code $text} index and sorts by relevance first.
+ * When the filter names fields, only those are read from Mongo.
+ */
+@Component
+public class TicketQueryBuilder {
+
+	@Autowired
+	private TitleMatcher titleMatcher;
+
+	public List<Criteria> criteria(TicketFilter filter) {
+		List<Criteria> criteria = new ArrayList<Criteria>();
+		if (filter.getNumber() != null) {
+			criteria.add(Criteria.where("number").is(filter.getNumber()));
+		}
+		if (filter.getUserId() != null) {
+			criteria.add(Criteria.where("user.$id").is(TicketRepositoryImpl.toObjectId(filter.getUserId())));
+		}
+		if (filter.getAssignedUserId() != null) {
+			criteria.add(Criteria.where("assignedUser.$id").is(TicketRepositoryImpl.toObjectId(filter.getAssignedUserId())));
+		}
+		if (filter.getStatus() != null && !filter.getStatus().isEmpty()) {
+			criteria.add(exactOrIn("status", filter.getStatus()));
+		}
+		if (filter.getPriority() != null && !filter.getPriority().isEmpty()) {
+			criteria.add(exactOrIn("priority", filter.getPriority()));
+		}
+		if (filter.getTitle() != null && !filter.getTitle().isEmpty()) {
+			criteria.add(titleMatcher.match(filter.getTitle()));
+		}
+		return criteria;
+	}
+
+	public Query query(TicketFilter filter) {
+		Query query = new Query();
+		if (filter.getText() != null && !filter.getText().isEmpty()) {
+			query = TextQuery.queryText(TextCriteria.forDefaultLanguage().matching(filter.getText())).sortByScore();
+		}
+		return project(query(query, criteria(filter)), filter);
+	}
+
+	public Query project(Query query, TicketFilter filter) {
+		if (filter.getFields() != null) {
+			for (String field : filter.getFields()) {
+				query.fields().include(field);
+			}
+		}
+		return query;
+	}
+
+	public Query query(List<Criteria> criteria) {
+		return query(new Query(), criteria);
+	}
+
+	private Query query(Query query, List<Criteria> criteria) {
+		if (!criteria.isEmpty()) {
+			query.addCriteria(new Criteria().andOperator(criteria.toArray(new Criteria[criteria.size()])));
+		}
+		return query;
+	}
+
+	private Criteria exactOrIn(String field, List<? extends Enum<?>> values) {
+		if (values.size() == 1) {
+			return Criteria.where(field).is(values.get(0).name());
+		}
+		List<String> names = new ArrayList<String>();
+		for (Enum<?> value : values) {
+			names.add(value.name());
+		}
+		return Criteria.where(field).in(names);
+	}
+}
@@ -0,0 +1,56 @@
+package dani.daniel.helpDesk.api.repository;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.Document;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
+
+import dani.daniel.helpDesk.api.Ticket;
+import dani.daniel.helpDesk.api.User;
+import dani.daniel.helpDesk.api.dto.CursorPage;
+import dani.daniel.helpDesk.api.dto.Summary;
+import dani.daniel.helpDesk.api.dto.TicketFilter;
+import dani.daniel.helpDesk.api.dto.TicketStatusMove;
+import dani.daniel.helpDesk.api.enums.StatusEnum;
+
+public interface TicketRepositoryCustom {
+
+	CursorPage<Ticket> findByCursor(TicketFilter filter, String cursor, int count);
+	
+	Page<Ticket> findPageByFilter(TicketFilter filter, int page, int count);
+	
+	Slice<Ticket> findSliceByFilter(TicketFilter filter, int page, int count);
+	
+	long countByFilter(TicketFilter filter);
+	
+	CloseableIterator<Document> streamByFilter(TicketFilter filter);
+	
+	Summary summarize(String userId, String assignedUserId, Date from, Date to);
+	
+	Ticket findStateById(String id);
+	
+	Ticket deleteAndGetState(String id);
+	
+	Ticket changeStatus(String id, StatusEnum status, User assignedUser);
+	
+	Map<String, TicketStatusMove> changeStatus(Collection<String> ids, StatusEnum status, User assignedUser);
+	
+	Ticket patch(String id, Update update, Long version);
+	
+	void initVersions();
+	
+	Map<Integer, String> insertUnordered(List<Ticket> tickets);
+	
+	Integer findMaxNumber();
+	
+	List<String> findDuplicateNumberIds();
+	
+	void updateNumber(String id, Integer number);
+
+}
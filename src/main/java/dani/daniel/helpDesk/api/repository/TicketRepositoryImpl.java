@@ -0,0 +1,373 @@
+package dani.daniel.helpDesk.api.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.repository.support.PageableExecutionUtils;
+import org.springframework.data.util.CloseableIterator;
+
+import com.mongodb.bulk.BulkWriteError;
+
+import dani.daniel.helpDesk.api.Ticket;
+import dani.daniel.helpDesk.api.User;
+import dani.daniel.helpDesk.api.dto.CursorPage;
+import dani.daniel.helpDesk.api.dto.Summary;
+import dani.daniel.helpDesk.api.dto.TicketFilter;
+import dani.daniel.helpDesk.api.dto.TicketStatusMove;
+import dani.daniel.helpDesk.api.enums.StatusEnum;
+
+public class TicketRepositoryImpl implements TicketRepositoryCustom {
+
+	private static final int STREAM_BATCH_SIZE = 500;
+	
+	private static final String LAST_STATUS_CHANGE = "lastStatusChange";
+	
+	static final Sort KEYSET_SORT = Sort.by(Direction.DESC, "date").and(Sort.by(Direction.DESC, "_id"));
+
+	@Autowired
+	private MongoTemplate mongoTemplate;
+
+	@Autowired
+	private TicketQueryBuilder ticketQueryBuilder;
+
+	@Override
+	public CursorPage<Ticket> findByCursor(TicketFilter filter, String cursor, int count) {
+		if (count < 1) {
+			throw new IllegalArgumentException("Count must be greater than zero");
+		}
+		List<Criteria> criteria = ticketQueryBuilder.criteria(filter);
+		if (cursor != null && !cursor.isEmpty()) {
+			criteria.add(afterCursor(cursor));
+		}
+		Query query = ticketQueryBuilder.project(ticketQueryBuilder.query(criteria), filter).with(KEYSET_SORT).limit(count + 1);
+		if (filter.getFields() != null) {
+			query.fields().include("date");
+		}
+
+		List<Ticket> tickets = mongoTemplate.find(query, Ticket.class);
+		String nextCursor = null;
+		if (tickets.size() > count) {
+			tickets = new ArrayList<Ticket>(tickets.subList(0, count));
+			nextCursor = encodeCursor(tickets.get(count - 1));
+		}
+		return new CursorPage<Ticket>(tickets, nextCursor);
+	}
+
+	@Override
+	public Page<Ticket> findPageByFilter(TicketFilter filter, int page, int count) {
+		Pageable pageable = PageRequest.of(page, count, KEYSET_SORT);
+		Query query = ticketQueryBuilder.query(filter).with(pageable);
+		List<Ticket> tickets = mongoTemplate.find(query, Ticket.class);
+		return PageableExecutionUtils.getPage(tickets, pageable,
+				() -> mongoTemplate.count(ticketQueryBuilder.query(filter), Ticket.class));
+	}
+
+	@Override
+	public Slice<Ticket> findSliceByFilter(TicketFilter filter, int page, int count) {
+		Query query = ticketQueryBuilder.query(filter).with(KEYSET_SORT).skip((long) page * count).limit(count + 1);
+		List<Ticket> tickets = mongoTemplate.find(query, Ticket.class);
+		boolean hasNext = tickets.size() > count;
+		if (hasNext) {
+			tickets = new ArrayList<Ticket>(tickets.subList(0, count));
+		}
+		return new SliceImpl<Ticket>(tickets, PageRequest.of(page, count, KEYSET_SORT), hasNext);
+	}
+
+	@Override
+	public long countByFilter(TicketFilter filter) {
+		return mongoTemplate.count(ticketQueryBuilder.query(filter), Ticket.class);
+	}
+
+	@Override
+	public CloseableIterator<Document> streamByFilter(TicketFilter filter) {
+		Query query = ticketQueryBuilder.query(filter);
+		if (filter.getFields() == null) {
+			query.fields().exclude("image");
+		}
+		if (filter.getText() == null || filter.getText().isEmpty()) {
+			query.with(KEYSET_SORT);
+		}
+		query.cursorBatchSize(STREAM_BATCH_SIZE);
+		return mongoTemplate.stream(query, Document.class, mongoTemplate.getCollectionName(Ticket.class));
+	}
+
+	private Criteria afterCursor(String cursor) {
+		String[] position;
+		try {
+			position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":", 2);
+			Date date = new Date(Long.parseLong(position[0]));
+			Object id = toObjectId(position[1]);
+			return new Criteria().orOperator(
+					Criteria.where("date").lt(date),
+					new Criteria().andOperator(Criteria.where("date").is(date), Criteria.where("_id").lt(id)));
+		} catch (RuntimeException e) {
+			throw new IllegalArgumentException("Invalid cursor: " + cursor);
+		}
+	}
+
+	private String encodeCursor(Ticket ticket) {
+		String position = ticket.getDate().getTime() + ":" + ticket.getId();
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Override
+	public Summary summarize(String userId, String assignedUserId, Date from, Date to) {
+		return toSummary(mongoTemplate.aggregate(summaryAggregation(userId, assignedUserId, from, to),
+				mongoTemplate.getCollectionName(Ticket.class), Document.class));
+	}
+
+	static Aggregation summaryAggregation(String userId, String assignedUserId, Date from, Date to) {
+		List<AggregationOperation> operations = new ArrayList<AggregationOperation>();
+		Criteria criteria = new Criteria();
+		boolean filtered = false;
+		if (userId != null) {
+			criteria.and("user.$id").is(toObjectId(userId));
+			filtered = true;
+		}
+		if (assignedUserId != null) {
+			criteria.and("assignedUser.$id").is(toObjectId(assignedUserId));
+			filtered = true;
+		}
+		if (from != null || to != null) {
+			Criteria date = criteria.and("date");
+			if (from != null) {
+				date.gte(from);
+			}
+			if (to != null) {
+				date.lte(to);
+			}
+			filtered = true;
+		}
+		if (filtered) {
+			operations.add(Aggregation.match(criteria));
+		}
+		operations.add(Aggregation.group("status").count().as("count"));
+		return Aggregation.newAggregation(operations);
+	}
+
+	static Summary toSummary(Iterable<Document> results) {
+		Summary summary = emptySummary();
+		for (Document result : results) {
+			Object status = result.get("_id");
+			if (status == null) {
+				continue;
+			}
+			add(summary, StatusEnum.valueOf(status.toString()), ((Number) result.get("count")).intValue());
+		}
+		return summary;
+	}
+
+	@Override
+	public Ticket findStateById(String id) {
+		return mongoTemplate.findOne(stateById(id), Ticket.class);
+	}
+
+	@Override
+	public Ticket deleteAndGetState(String id) {
+		return mongoTemplate.findAndRemove(stateById(id), Ticket.class);
+	}
+
+	@Override
+	public Ticket changeStatus(String id, StatusEnum status, User assignedUser) {
+		Query query = new Query(Criteria.where("_id").is(id).and("status").in(allowedFrom(status)));
+		query.fields().exclude("image");
+		return mongoTemplate.findAndModify(query, statusUpdate(status, assignedUser), Ticket.class);
+	}
+
+	/**
+	 * Moves the tickets with one unordered bulk write holding a conditional
+	 * update per id and allowed source status, so at most one matches each
+	 * ticket. Every update stamps {@code lastStatusChange} with a token unique
+	 * to this call and the status it left, and one {@code $in} read-back then
+	 * tells which tickets this call moved, from where, and which were missing
+	 * or held by a status they cannot leave.
+	 */
+	@Override
+	public Map<String, TicketStatusMove> changeStatus(Collection<String> ids, StatusEnum status, User assignedUser) {
+		String token = new ObjectId().toHexString();
+		if (!ids.isEmpty() && !status.allowedFrom().isEmpty()) {
+			BulkOperations bulk = mongoTemplate.bulkOps(BulkMode.UNORDERED, Ticket.class);
+			for (String id : ids) {
+				for (StatusEnum from : status.allowedFrom()) {
+					Query query = new Query(Criteria.where("_id").is(id).and("status").is(from.name()));
+					Update update = statusUpdate(status, assignedUser)
+							.set(LAST_STATUS_CHANGE, new Document("_id", token).append("from", from.name()));
+					bulk.updateOne(query, update);
+				}
+			}
+			bulk.execute();
+		}
+		
+		List<Object> keys = new ArrayList<Object>(ids.size());
+		for (String id : ids) {
+			keys.add(ObjectId.isValid(id) ? new ObjectId(id) : id);
+		}
+		Query query = new Query(Criteria.where("_id").in(keys));
+		query.fields().include("status").include(LAST_STATUS_CHANGE);
+		Map<String, TicketStatusMove> moves = new HashMap<String, TicketStatusMove>();
+		for (Document ticket : mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(Ticket.class))) {
+			String id = ticket.get("_id").toString();
+			Document change = ticket.get(LAST_STATUS_CHANGE, Document.class);
+			StatusEnum from = change != null && token.equals(change.getString("_id"))
+					? StatusEnum.valueOf(change.getString("from")) : null;
+			moves.put(id, new TicketStatusMove(id, StatusEnum.valueOf(ticket.getString("status")), from));
+		}
+		return moves;
+	}
+
+	static List<String> allowedFrom(StatusEnum status) {
+		List<String> allowedFrom = new ArrayList<String>();
+		for (StatusEnum from : status.allowedFrom()) {
+			allowedFrom.add(from.name());
+		}
+		return allowedFrom;
+	}
+	
+	/**
+	 * Version stored by {@link #statusUpdate}, for callers holding the pre-image
+	 * returned by the status change.
+	 */
+	public static Long nextVersion(Long version) {
+		return version != null ? version + 1 : 1L;
+	}
+	
+	static Update statusUpdate(StatusEnum status, User assignedUser) {
+		Update update = Update.update("status", status.name()).inc("version", 1);
+		if (assignedUser != null) {
+			update.set("assignedUser", assignedUser);
+		}
+		return update;
+	}
+
+	@Override
+	public Integer findMaxNumber() {
+		Query query = new Query().with(Sort.by(Direction.DESC, "number")).limit(1);
+		query.fields().include("number");
+		Ticket ticket = mongoTemplate.findOne(query, Ticket.class);
+		return ticket != null ? ticket.getNumber() : null;
+	}
+
+	@Override
+	public List<String> findDuplicateNumberIds() {
+		List<String> ids = new ArrayList<String>();
+		Aggregation aggregation = Aggregation.newAggregation(
+				Aggregation.group("number").push("_id").as("ids").count().as("count"),
+				Aggregation.match(Criteria.where("count").gt(1)));
+		for (Document duplicate : mongoTemplate.aggregate(aggregation,
+				mongoTemplate.getCollectionName(Ticket.class), Document.class)) {
+			List<?> duplicateIds = duplicate.get("ids", List.class);
+			for (Object id : duplicateIds.subList(1, duplicateIds.size())) {
+				ids.add(id.toString());
+			}
+		}
+		return ids;
+	}
+
+	@Override
+	public void updateNumber(String id, Integer number) {
+		mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(id)),
+				Update.update("number", number).inc("version", 1), Ticket.class);
+	}
+
+	@Override
+	public Ticket patch(String id, Update update, Long version) {
+		Criteria criteria = Criteria.where("_id").is(id);
+		if (version != null) {
+			criteria.and("version").is(version);
+		}
+		return mongoTemplate.findAndModify(new Query(criteria), update.inc("version", 1),
+				FindAndModifyOptions.options().returnNew(true), Ticket.class);
+	}
+
+	@Override
+	public Map<Integer, String> insertUnordered(List<Ticket> tickets) {
+		Map<Integer, String> errors = new HashMap<Integer, String>();
+		try {
+			mongoTemplate.bulkOps(BulkMode.UNORDERED, Ticket.class).insert(tickets).execute();
+		} catch (BulkOperationException e) {
+			for (BulkWriteError error : e.getErrors()) {
+				errors.put(error.getIndex(), error.getMessage());
+			}
+		}
+		return errors;
+	}
+
+	@Override
+	public void initVersions() {
+		mongoTemplate.updateMulti(new Query(Criteria.where("version").exists(false)),
+				Update.update("version", 0L), Ticket.class);
+	}
+
+	static Query stateById(String id) {
+		Query query = new Query(Criteria.where("_id").is(id));
+		query.fields().include("status").include("attachment").include("version");
+		return query;
+	}
+	
+	/**
+	 * Pins a full save to the version its previous state was read at, so the
+	 * save only succeeds if that state is still the stored one and the status
+	 * counters can be moved from it exactly once.
+	 */
+	public static void expectVersion(Ticket ticket, Ticket previous) {
+		if (ticket.getVersion() == null) {
+			ticket.setVersion(previous.getVersion());
+		} else if (!ticket.getVersion().equals(previous.getVersion())) {
+			throw new OptimisticLockingFailureException("Ticket " + ticket.getId() + " was modified, version "
+					+ ticket.getVersion() + " is stale");
+		}
+	}
+
+	static Object toObjectId(String id) {
+		return ObjectId.isValid(id) ? new ObjectId(id) : id;
+	}
+
+	static Summary emptySummary() {
+		Summary summary = new Summary();
+		summary.setAmountNew(0);
+		summary.setAmountResolved(0);
+		summary.setAmountApproved(0);
+		summary.setAmountDisapproved(0);
+		summary.setAmountAssigned(0);
+		summary.setAmountClosed(0);
+		return summary;
+	}
+
+	static void add(Summary summary, StatusEnum status, int amount) {
+		switch (status) {
+		case New : summary.setAmountNew(summary.getAmountNew() + amount); break;
+		case Assigned : summary.setAmountAssigned(summary.getAmountAssigned() + amount); break;
+		case Resolved : summary.setAmountResolved(summary.getAmountResolved() + amount); break;
+		case Approved : summary.setAmountApproved(summary.getAmountApproved() + amount); break;
+		case Disapproved : summary.setAmountDisapproved(summary.getAmountDisapproved() + amount); break;
+		case Closed : summary.setAmountClosed(summary.getAmountClosed() + amount); break;
+		}
+	}
+}
@@ -0,0 +1,8 @@
+package dani.daniel.helpDesk.api.repository;
+
+import org.springframework.data.mongodb.core.query.Criteria;
+
+public interface TitleMatcher {
+
+	Criteria match(String title);
+}
@@ -0,0 +1,89 @@
+package dani.daniel.helpDesk.api.repository;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.LazyLoadingProxy;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import com.mongodb.DBRef;
+
+import dani.daniel.helpDesk.api.Ticket;
+import dani.daniel.helpDesk.api.User;
+
+/**
+ * Replaces the lazy user references of a set of tickets with users loaded by
+ * one {@code $in} query (id, e-mail and profile only), instead of letting
+ * each proxy run its own {@code findById} during serialization. Users already
+ * loaded are kept for the rest of the request.
+ */
+@Component
+public class UserReferenceResolver {
+	
+	static final String REQUEST_CACHE = UserReferenceResolver.class.getName() + ".USERS";
+
+	@Autowired
+	private MongoTemplate mongoTemplate;
+
+	public void resolve(Collection<Ticket> tickets) {
+		Map<String, User> users = requestCache();
+		Set<Object> missing = new LinkedHashSet<Object>();
+		for (Ticket ticket : tickets) {
+			addMissing(ticket.getUser(), users, missing);
+			addMissing(ticket.getAssignedUser(), users, missing);
+		}
+		if (!missing.isEmpty()) {
+			Query query = new Query(Criteria.where("_id").in(missing));
+			query.fields().include("email").include("profile");
+			for (User user : mongoTemplate.find(query, User.class)) {
+				users.put(user.getId(), user);
+			}
+		}
+		for (Ticket ticket : tickets) {
+			if (isReference(ticket.getUser())) {
+				ticket.setUser(users.get(referenceId(ticket.getUser())));
+			}
+			if (isReference(ticket.getAssignedUser())) {
+				ticket.setAssignedUser(users.get(referenceId(ticket.getAssignedUser())));
+			}
+		}
+	}
+
+	private void addMissing(User user, Map<String, User> users, Set<Object> missing) {
+		if (isReference(user) && !users.containsKey(referenceId(user))) {
+			missing.add(((LazyLoadingProxy) user).toDBRef().getId());
+		}
+	}
+
+	private boolean isReference(User user) {
+		return user instanceof LazyLoadingProxy && ((LazyLoadingProxy) user).toDBRef() != null;
+	}
+
+	private String referenceId(User user) {
+		DBRef reference = ((LazyLoadingProxy) user).toDBRef();
+		return reference.getId().toString();
+	}
+
+	@SuppressWarnings("unchecked")
+	private Map<String, User> requestCache() {
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		if (attributes == null) {
+			return new HashMap<String, User>();
+		}
+		Object users = attributes.getAttribute(REQUEST_CACHE, RequestAttributes.SCOPE_REQUEST);
+		if (users == null) {
+			users = new HashMap<String, User>();
+			attributes.setAttribute(REQUEST_CACHE, users, RequestAttributes.SCOPE_REQUEST);
+		}
+		return (Map<String, User>) users;
+	}
+}
@@ -0,0 +1,99 @@
+package dani.daniel.helpDesk.api.security.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UserDetailsRepositoryReactiveAuthenticationManager;
+import org.springframework.security.config.annotation.method.configuration.EnableReactiveMethodSecurity;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+
+import dani.daniel.helpDesk.api.repository.ReactiveUserRepository;
+import dani.daniel.helpDesk.api.security.jwt.JwtAuthenticationWebFilter;
+import dani.daniel.helpDesk.api.security.jwt.JwtTokenUtil;
+import dani.daniel.helpDesk.api.security.jwt.JwtUserFactory;
+import dani.daniel.helpDesk.api.security.service.UserDetailsCache;
+import reactor.core.publisher.Mono;
+
+/**
+ * Security for the reactive stack, with the same rules as
+ * {@link WebSecurityConfig}. Served by Netty even though Tomcat is on the
+ * classpath for the servlet stack.
+ */
+@Configuration
+@EnableWebFluxSecurity
+@EnableReactiveMethodSecurity
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class ReactiveSecurityConfig {
+	
+	@Autowired
+	private JwtTokenUtil jwtTokenUtil;
+	
+	@Autowired
+	private UserDetailsCache userDetailsCache;
+	
+	@Autowired
+	private ReactiveUserRepository userRepository;
+	
+	@Bean
+	public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+		return new NettyReactiveWebServerFactory();
+	}
+	
+	@Bean
+	public PasswordEncoder passwordEncoder() {
+		return new BCryptPasswordEncoder();
+	}
+	
+	@Bean
+	public ReactiveUserDetailsService reactiveUserDetailsService() {
+		return email -> userRepository.findByEmail(email).map(JwtUserFactory::create);
+	}
+	
+	@Bean
+	public ReactiveAuthenticationManager reactiveAuthenticationManager() {
+		UserDetailsRepositoryReactiveAuthenticationManager authenticationManager =
+				new UserDetailsRepositoryReactiveAuthenticationManager(reactiveUserDetailsService());
+		authenticationManager.setPasswordEncoder(passwordEncoder());
+		return authenticationManager;
+	}
+	
+	@Bean
+	public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
+		return http.csrf().disable()
+				.httpBasic().disable()
+				.formLogin().disable()
+				.securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+				.exceptionHandling()
+				.authenticationEntryPoint((exchange, e) -> Mono.fromRunnable(
+						() -> exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED))).and()
+				.authorizeExchange()
+				.pathMatchers(
+						HttpMethod.GET,
+						"/",
+						"/*.html",
+						"/favicon.ico",
+						"/**/*.html",
+						"/**/*.css",
+						"/**/*.js"
+				).permitAll()
+				.pathMatchers("/api/auth/**").permitAll()
+				.anyExchange().authenticated().and()
+				.addFilterAt(new JwtAuthenticationWebFilter(jwtTokenUtil, userDetailsCache, userRepository),
+						SecurityWebFiltersOrder.AUTHENTICATION)
+				.build();
+	}
+
+}
@@ -0,0 +1,24 @@
+package dani.daniel.helpDesk.api.security.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.reactive.result.method.annotation.ArgumentResolverConfigurer;
+
+import dani.daniel.helpDesk.api.security.jwt.ReactiveAuthenticatedUserArgumentResolver;
+
+@Configuration
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class WebFluxConfig implements WebFluxConfigurer {
+
+	@Autowired
+	private ReactiveAuthenticatedUserArgumentResolver authenticatedUserArgumentResolver;
+
+	@Override
+	public void configureArgumentResolvers(ArgumentResolverConfigurer configurer) {
+		configurer.addCustomResolver(authenticatedUserArgumentResolver);
+	}
+
+}
@@ -0,0 +1,26 @@
+package dani.daniel.helpDesk.api.security.config;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import dani.daniel.helpDesk.api.security.jwt.AuthenticatedUserArgumentResolver;
+
+@Configuration
+@ConditionalOnWebApplication(type = Type.SERVLET)
+public class WebMvcConfig implements WebMvcConfigurer {
+
+	@Autowired
+	private AuthenticatedUserArgumentResolver authenticatedUserArgumentResolver;
+
+	@Override
+	public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+		resolvers.add(authenticatedUserArgumentResolver);
+	}
+
+}
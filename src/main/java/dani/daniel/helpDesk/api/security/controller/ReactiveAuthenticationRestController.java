@@ -0,0 +1,63 @@
+package dani.daniel.helpDesk.api.security.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+
+import dani.daniel.helpDesk.api.security.jwt.JwtAuthenticationRequest;
+import dani.daniel.helpDesk.api.security.jwt.JwtTokenUtil;
+import dani.daniel.helpDesk.api.security.jwt.JwtUserFactory;
+import dani.daniel.helpDesk.api.security.model.CurrentUser;
+import dani.daniel.helpDesk.api.service.ReactiveUserService;
+import reactor.core.publisher.Mono;
+
+@RestController
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+@CrossOrigin(origins = "*")
+public class ReactiveAuthenticationRestController {
+
+    @Autowired
+    private ReactiveAuthenticationManager authenticationManager;
+
+    @Autowired
+    private JwtTokenUtil jwtTokenUtil;
+    
+    @Autowired
+    private ReactiveUserService userService;
+
+    @PostMapping(value="/api/auth")
+    public Mono<ResponseEntity<CurrentUser>> createAuthenticationToken(@RequestBody JwtAuthenticationRequest authenticationRequest) {
+        return authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(
+                        authenticationRequest.getEmail(),
+                        authenticationRequest.getPassword()))
+                .then(userService.findByEmail(authenticationRequest.getEmail()))
+                .map(user -> {
+                    String token = jwtTokenUtil.generateToken(JwtUserFactory.create(user));
+                    user.setPassword(null);
+                    return ResponseEntity.ok(new CurrentUser(token, user));
+                })
+                .onErrorResume(AuthenticationException.class,
+                        e -> Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).<CurrentUser>build()));
+    }
+
+    @PostMapping(value="/api/refresh")
+    public Mono<ResponseEntity<CurrentUser>> refreshAndGetAuthenticationToken(@RequestHeader("Authorization") String token) {
+        String username = jwtTokenUtil.getUsernameFromToken(token);
+        if (username == null || !jwtTokenUtil.canTokenBeRefreshed(token)) {
+            return Mono.just(ResponseEntity.badRequest().<CurrentUser>body(null));
+        }
+        return userService.findByEmail(username)
+                .map(user -> ResponseEntity.ok(new CurrentUser(jwtTokenUtil.refreshToken(token), user)));
+    }
+
+}
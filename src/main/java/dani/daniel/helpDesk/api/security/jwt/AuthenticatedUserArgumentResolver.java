@@ -0,0 +1,38 @@
+package dani.daniel.helpDesk.api.security.jwt;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import dani.daniel.helpDesk.api.security.model.AuthenticatedUser;
+
+/**
+ * Builds the {@link AuthenticatedUser} of a controller method from the
+ * {@link JwtUser} authenticated by {@link JwtAuthenticationTokenFilter}, which
+ * comes from the user cache and so carries the current profile, not the one
+ * signed into the token.
+ */
+@Component
+public class AuthenticatedUserArgumentResolver implements HandlerMethodArgumentResolver {
+
+	@Override
+	public boolean supportsParameter(MethodParameter parameter) {
+		return AuthenticatedUser.class.equals(parameter.getParameterType());
+	}
+
+	@Override
+	public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+			NativeWebRequest webRequest, WebDataBinderFactory binderFactory) throws Exception {
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		if (authentication == null || !(authentication.getPrincipal() instanceof JwtUser)) {
+			return null;
+		}
+		return AuthenticatedUser.of((JwtUser) authentication.getPrincipal());
+	}
+
+}
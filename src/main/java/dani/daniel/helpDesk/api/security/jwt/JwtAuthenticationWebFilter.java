@@ -0,0 +1,75 @@
+package dani.daniel.helpDesk.api.security.jwt;
+
+import java.util.Optional;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import dani.daniel.helpDesk.api.repository.ReactiveUserRepository;
+import dani.daniel.helpDesk.api.security.service.UserDetailsCache;
+import io.jsonwebtoken.Claims;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of {@link JwtAuthenticationTokenFilter}: the token is
+ * verified once through the claims cache and the user is taken from the
+ * {@link UserDetailsCache}, loading it without blocking on a miss. It is added
+ * to the security chain only, so it is not a bean.
+ */
+public class JwtAuthenticationWebFilter implements WebFilter {
+	
+	private final Log logger = LogFactory.getLog(this.getClass());
+
+	private final JwtTokenUtil jwtTokenUtil;
+	
+	private final UserDetailsCache userDetailsCache;
+	
+	private final ReactiveUserRepository userRepository;
+
+	public JwtAuthenticationWebFilter(JwtTokenUtil jwtTokenUtil, UserDetailsCache userDetailsCache,
+			ReactiveUserRepository userRepository) {
+		this.jwtTokenUtil = jwtTokenUtil;
+		this.userDetailsCache = userDetailsCache;
+		this.userRepository = userRepository;
+	}
+
+	@Override
+	public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+		String authToken = exchange.getRequest().getHeaders().getFirst("Authorization");
+		Claims claims = jwtTokenUtil.getClaimsFromToken(authToken);
+		String username = claims != null ? claims.getSubject() : null;
+		if (username == null) {
+			return chain.filter(exchange);
+		}
+		return loadUser(username)
+				.filter(userDetails -> jwtTokenUtil.validateToken(claims, userDetails))
+				.map(userDetails -> Optional.<Authentication>of(new UsernamePasswordAuthenticationToken(
+						userDetails, null, userDetails.getAuthorities())))
+				.defaultIfEmpty(Optional.empty())
+				.flatMap(authentication -> {
+					if (!authentication.isPresent()) {
+						return chain.filter(exchange);
+					}
+					logger.debug("authenticated user " + username + ", setting security context");
+					return chain.filter(exchange)
+							.subscriberContext(ReactiveSecurityContextHolder.withAuthentication(authentication.get()));
+				});
+	}
+	
+	private Mono<JwtUser> loadUser(String email) {
+		JwtUser cached = userDetailsCache.getIfPresent(email);
+		if (cached != null) {
+			return Mono.just(cached);
+		}
+		return userRepository.findByEmail(email)
+				.map(JwtUserFactory::create)
+				.doOnNext(user -> userDetailsCache.put(email, user));
+	}
+
+}
@@ -5,6 +5,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
@@ -21,6 +22,8 @@ public class JwtTokenUtil implements Serializable {
 	static final String CLAIM_KEY_USERNAME = "sub";
 	static final String CLAIM_KEY_CREATED = "created";
 	static final String CLAIM_KEY_EXPIRED = "exp";
+	static final String CLAIM_KEY_USER_ID = "userId";
+	static final String CLAIM_KEY_PROFILE = "profile";
 	
 	@Value("${jwt.secret}")
 	private String secret;
@@ -28,6 +31,9 @@ public class JwtTokenUtil implements Serializable {
 	@Value("${jwt.expiration}")
 	private Long expiration;
 	
+	@Autowired
+	private transient JwtClaimsCache claimsCache;
+	
 	
 	public String getUsernameFromToken(String token) {
 		String username;
@@ -51,7 +57,14 @@ public class JwtTokenUtil implements Serializable {
 		return expiration;
 	}
 	
-	private Claims getClaimsFromToken(String token) {
+	public Claims getClaimsFromToken(String token) {
+		if (token == null) {
+			return null;
+		}
+		return claimsCache.get(token, this::parseClaims);
+	}
+	
+	private Claims parseClaims(String token) {
 		Claims claims;
 		try {
 			claims = Jwts.parser()
@@ -70,10 +83,23 @@ public class JwtTokenUtil implements Serializable {
 		return expiration.before(new Date());
 	}
 	
+	private Boolean isTokenExpired (Claims claims) {
+		final Date expiration  = claims.getExpiration();
+		return expiration.before(new Date());
+	}
+	
+	/**
+	 * Signs the username and the user id. The profile is not signed in: it is
+	 * read from the user cache on every request, so a role change applies
+	 * before the token expires.
+	 */
 	public String generateToken (UserDetails userDetails) {
 		Map<String, Object> claims = new HashMap<>();
 		
 		claims.put(CLAIM_KEY_USERNAME, userDetails.getUsername());
+		if (userDetails instanceof JwtUser) {
+			claims.put(CLAIM_KEY_USER_ID, ((JwtUser) userDetails).getId());
+		}
 		
 		final Date createdDate = new Date();
 		claims.put(CLAIM_KEY_CREATED, createdDate);
@@ -101,7 +127,8 @@ public class JwtTokenUtil implements Serializable {
 	public String refreshToken(String token) {
 		String refreshedToken;
 		try {
-			final Claims claims = getClaimsFromToken(token);
+			final Map<String, Object> claims = new HashMap<>(getClaimsFromToken(token));
+			claims.remove(CLAIM_KEY_PROFILE);
 			claims.put(CLAIM_KEY_CREATED, new Date());
 			refreshedToken = doGenerateToken(claims);
 		} catch (Exception e) {
@@ -116,6 +143,20 @@ public class JwtTokenUtil implements Serializable {
 		return (username.equals(user.getUsername()) && !isTokenExpired(token));
 	}
 	
+	/**
+	 * Also checks the user id claim, so a token issued to a deleted account is
+	 * not accepted for a new account created with the same email. Tokens
+	 * issued without the claim are still accepted until they expire.
+	 */
+	public Boolean validateToken(Claims claims, UserDetails userDetails) {
+		JwtUser user  = (JwtUser) userDetails;
+		final String username = claims.getSubject();
+		final Object userId = claims.get(CLAIM_KEY_USER_ID);
+		return (username.equals(user.getUsername())
+				&& (userId == null || userId.equals(user.getId()))
+				&& !isTokenExpired(claims));
+	}
+	
 	
 
 }
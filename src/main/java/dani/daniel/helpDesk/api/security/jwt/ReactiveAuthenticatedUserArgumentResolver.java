@@ -0,0 +1,35 @@
+package dani.daniel.helpDesk.api.security.jwt;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.BindingContext;
+import org.springframework.web.reactive.result.method.HandlerMethodArgumentResolver;
+import org.springframework.web.server.ServerWebExchange;
+
+import dani.daniel.helpDesk.api.security.model.AuthenticatedUser;
+import reactor.core.publisher.Mono;
+
+/**
+ * WebFlux version of {@link AuthenticatedUserArgumentResolver}, reading the
+ * {@link JwtUser} authenticated by {@link JwtAuthenticationWebFilter}.
+ */
+@Component
+public class ReactiveAuthenticatedUserArgumentResolver implements HandlerMethodArgumentResolver {
+
+	@Override
+	public boolean supportsParameter(MethodParameter parameter) {
+		return AuthenticatedUser.class.equals(parameter.getParameterType());
+	}
+
+	@Override
+	public Mono<Object> resolveArgument(MethodParameter parameter, BindingContext bindingContext,
+			ServerWebExchange exchange) {
+		return ReactiveSecurityContextHolder.getContext()
+				.map(SecurityContext::getAuthentication)
+				.filter(authentication -> authentication.getPrincipal() instanceof JwtUser)
+				.map(authentication -> AuthenticatedUser.of((JwtUser) authentication.getPrincipal()));
+	}
+
+}
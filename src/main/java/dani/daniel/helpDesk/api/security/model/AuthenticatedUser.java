@@ -0,0 +1,53 @@
+package dani.daniel.helpDesk.api.security.model;
+
+import org.springframework.security.core.GrantedAuthority;
+
+import dani.daniel.helpDesk.api.User;
+import dani.daniel.helpDesk.api.enums.ProfileEnum;
+import dani.daniel.helpDesk.api.security.jwt.JwtUser;
+
+public class AuthenticatedUser {
+	
+	private final String id;
+	private final String email;
+	private final ProfileEnum profile;
+
+	public AuthenticatedUser(String id, String email, ProfileEnum profile) {
+		this.id = id;
+		this.email = email;
+		this.profile = profile;
+	}
+
+	/**
+	 * Takes the profile from the authorities loaded for this request rather
+	 * than from the token, so a role change scopes queries right away.
+	 */
+	public static AuthenticatedUser of(JwtUser user) {
+		ProfileEnum profile = null;
+		for (GrantedAuthority authority : user.getAuthorities()) {
+			profile = ProfileEnum.valueOf(authority.getAuthority());
+		}
+		return new AuthenticatedUser(user.getId(), user.getUsername(), profile);
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public String getEmail() {
+		return email;
+	}
+
+	public ProfileEnum getProfile() {
+		return profile;
+	}
+	
+	public User toUser() {
+		User user = new User();
+		user.setId(id);
+		user.setEmail(email);
+		user.setProfile(profile);
+		return user;
+	}
+
+}
@@ -16,15 +16,18 @@ public class JwtUserDetailsServiceImpl  implements UserDetailsService {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-
-    		User user = userService.findByEmail(email);
-        if (user == null) {
-            throw new UsernameNotFoundException(String.format("No user found with username '%s'.", email));
-        } else {
+        return userDetailsCache.get(email, key -> {
+            User user = userService.findByEmail(key);
+            if (user == null) {
+                throw new UsernameNotFoundException(String.format("No user found with username '%s'.", key));
+            }
             return JwtUserFactory.create(user);
-        }
+        });
     }
 
 }
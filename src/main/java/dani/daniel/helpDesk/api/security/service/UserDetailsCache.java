@@ -0,0 +1,59 @@
+package dani.daniel.helpDesk.api.security.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import dani.daniel.helpDesk.api.dto.CacheStatistics;
+import dani.daniel.helpDesk.api.security.jwt.JwtUser;
+
+/**
+ * Keeps the {@link JwtUser} built for each e-mail so the authentication filter
+ * does not hit Mongo on every request. Entries are evicted by size and TTL and
+ * must be invalidated explicitly whenever a user is written.
+ */
+@Component
+public class UserDetailsCache {
+
+	private final Cache<String, JwtUser> cache;
+
+	public UserDetailsCache(@Value("${user.cache.size:1000}") long maximumSize,
+							@Value("${user.cache.ttl:300}") long ttlSeconds) {
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+				.recordStats()
+				.build();
+	}
+
+	public JwtUser get(String email, Function<String, JwtUser> loader) {
+		return cache.get(email, loader);
+	}
+
+	public JwtUser getIfPresent(String email) {
+		return cache.getIfPresent(email);
+	}
+
+	public void put(String email, JwtUser user) {
+		cache.put(email, user);
+	}
+
+	public void invalidate(String userId, String email) {
+		if (email != null) {
+			cache.invalidate(email);
+		}
+		if (userId != null) {
+			cache.asMap().values().removeIf(user -> userId.equals(user.getId()));
+		}
+	}
+
+	public CacheStatistics stats() {
+		return new CacheStatistics(cache.estimatedSize(), cache.stats());
+	}
+
+}
@@ -0,0 +1,17 @@
+package dani.daniel.helpDesk.api.service;
+
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import dani.daniel.helpDesk.api.Attachment;
+
+@Component
+public interface AttachmentService {
+	
+	Attachment store(String image, String filename);
+	
+	Resource load(Attachment attachment);
+	
+	void delete(Attachment attachment);
+
+}
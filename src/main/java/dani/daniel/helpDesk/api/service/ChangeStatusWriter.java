@@ -0,0 +1,16 @@
+package dani.daniel.helpDesk.api.service;
+
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+
+import dani.daniel.helpDesk.api.ChangeStatus;
+
+@Component
+public interface ChangeStatusWriter {
+	
+	void write(ChangeStatus changeStatus);
+	
+	void writeAll(List<ChangeStatus> changes);
+
+}
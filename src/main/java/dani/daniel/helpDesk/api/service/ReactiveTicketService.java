@@ -0,0 +1,36 @@
+package dani.daniel.helpDesk.api.service;
+
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Component;
+
+import dani.daniel.helpDesk.api.ChangeStatus;
+import dani.daniel.helpDesk.api.Ticket;
+import dani.daniel.helpDesk.api.User;
+import dani.daniel.helpDesk.api.dto.Summary;
+import dani.daniel.helpDesk.api.dto.TicketFilter;
+import dani.daniel.helpDesk.api.enums.StatusEnum;
+import reactor.core.publisher.Mono;
+
+@Component
+public interface ReactiveTicketService {
+	
+	Mono<Ticket> createOrUpdate(Ticket ticket);
+	
+	Mono<Ticket> findById(String id);
+	
+	Mono<Ticket> delete(String id);
+	
+	Mono<Page<Ticket>> findByFilter(TicketFilter filter, int page, int count);
+	
+	Mono<List<ChangeStatus>> listChangeStatus(String ticketId);
+	
+	Mono<Ticket> changeStatus(String id, StatusEnum status, User userChange);
+	
+	Mono<Summary> findSummary(String userId, String assignedUserId, Date from, Date to);
+	
+	Mono<Integer> generateNumber();
+
+}
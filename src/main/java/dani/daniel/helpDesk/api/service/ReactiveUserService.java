@@ -0,0 +1,22 @@
+package dani.daniel.helpDesk.api.service;
+
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Component;
+
+import dani.daniel.helpDesk.api.User;
+import reactor.core.publisher.Mono;
+
+@Component
+public interface ReactiveUserService {
+	
+	Mono<User> findByEmail(String email);
+	
+	Mono<User> createOrUpdate(User user);
+	
+	Mono<User> findById(String id);
+	
+	Mono<Void> delete(String id);
+	
+	Mono<Page<User>> findAll(int page, int count);
+
+}
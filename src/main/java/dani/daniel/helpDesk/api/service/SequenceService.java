@@ -0,0 +1,16 @@
+package dani.daniel.helpDesk.api.service;
+
+import org.springframework.stereotype.Component;
+
+@Component
+public interface SequenceService {
+	
+	String TICKET_NUMBER = "ticketNumber";
+	
+	long next(String name);
+	
+	long nextBlock(String name, int size);
+	
+	void ensureAtLeast(String name, long value);
+
+}
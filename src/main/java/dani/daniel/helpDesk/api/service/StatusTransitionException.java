@@ -0,0 +1,11 @@
+package dani.daniel.helpDesk.api.service;
+
+public class StatusTransitionException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public StatusTransitionException(String message) {
+		super(message);
+	}
+
+}
@@ -0,0 +1,23 @@
+package dani.daniel.helpDesk.api.service;
+
+import org.springframework.stereotype.Component;
+
+import dani.daniel.helpDesk.api.dto.Summary;
+import dani.daniel.helpDesk.api.enums.StatusEnum;
+
+@Component
+public interface TicketCounterService {
+	
+	void move(StatusEnum from, StatusEnum to);
+	
+	void move(StatusEnum from, StatusEnum to, long amount);
+	
+	void touch();
+	
+	long changes();
+	
+	Summary read();
+	
+	Summary rebuild();
+
+}
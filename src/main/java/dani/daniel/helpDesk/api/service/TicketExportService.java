@@ -0,0 +1,20 @@
+package dani.daniel.helpDesk.api.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.springframework.stereotype.Component;
+
+import dani.daniel.helpDesk.api.dto.TicketFilter;
+import dani.daniel.helpDesk.api.enums.ExportFormatEnum;
+
+@Component
+public interface TicketExportService {
+	
+	boolean tryAcquire();
+	
+	void release();
+	
+	long export(TicketFilter filter, ExportFormatEnum format, OutputStream out) throws IOException;
+
+}
@@ -0,0 +1,19 @@
+package dani.daniel.helpDesk.api.service;
+
+import java.util.Collection;
+import java.util.function.Consumer;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Carries the ids of written tickets to every instance holding a ticket cache.
+ * The implementation is chosen by {@code ticket.cache.invalidation}.
+ */
+@Component
+public interface TicketInvalidationChannel {
+	
+	void publish(Collection<String> ids);
+	
+	void subscribe(Consumer<Collection<String>> listener);
+
+}
@@ -1,12 +1,26 @@
 package dani.daniel.helpDesk.api.service;
 
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Component;
 
+import dani.daniel.helpDesk.api.Attachment;
 import dani.daniel.helpDesk.api.ChangeStatus;
 import dani.daniel.helpDesk.api.Ticket;
+import dani.daniel.helpDesk.api.User;
+import dani.daniel.helpDesk.api.dto.CacheStatistics;
+import dani.daniel.helpDesk.api.dto.CursorPage;
+import dani.daniel.helpDesk.api.dto.Summary;
+import dani.daniel.helpDesk.api.dto.TicketImportResult;
+import dani.daniel.helpDesk.api.dto.TicketStatusResult;
+import dani.daniel.helpDesk.api.dto.TicketFilter;
+import dani.daniel.helpDesk.api.enums.StatusEnum;
 
 @Component
 public interface TicketService {
@@ -15,24 +29,40 @@ public interface TicketService {
 	
 	Optional<Ticket> findById(String id);
 	
+	Attachment findAttachment(String id);
+	
 	void delete(String id);
 	
-	Page<Ticket> listTicket(int page, int count);
+	Ticket changeStatus(String id, StatusEnum status, User userChange);
+	
+	List<TicketStatusResult> changeStatus(Collection<String> ids, StatusEnum status, String assignedUserId, User userChange);
+	
+	Ticket patch(String id, Map<String, Object> patch, Long expectedVersion);
+	
+	List<TicketImportResult> importTickets(List<Ticket> tickets, User user);
+	
+	List<ChangeStatus> listChangeStatus(String ticketId);
+	
+	Page<Ticket> findByFilter(TicketFilter filter, int page, int count);
+	
+	CursorPage<Ticket> findByCursor(TicketFilter filter, String cursor, int count);
+	
+	Slice<Ticket> findSlice(TicketFilter filter, int page, int count);
 	
-	ChangeStatus createChangeStatus(ChangeStatus changeStatus);
+	long approximateCount(TicketFilter filter);
 	
-	Iterable<ChangeStatus> listChangeStatus(String ticketId);
+	Integer generateNumber();
 	
-	Page<Ticket> findByCurrentUser(int page, int count, String userId);
+	void initNumberSequence();
 	
-	Page<Ticket> findByParameters(int page, int count,String title,String status,String priority);
+	void initVersions();
 	
-	Page<Ticket> findByParametersAndCurrentUser(int page, int count,String title,String status,String priority,String userId);
+	long changeCount();
 	
-	Page<Ticket> findByNumber(int page, int count,Integer number);
+	long countChangeStatus(String ticketId);
 	
-	Iterable<Ticket> findAll();
+	CacheStatistics cacheStatistics();
 	
-	public Page<Ticket> findByParametersAndAssignedUser(int page, int count,String title,String status,String priority,String assignedUserId);
+	Summary findSummary(String userId, String assignedUserId, Date from, Date to);
 
 }
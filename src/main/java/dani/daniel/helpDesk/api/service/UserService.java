@@ -6,6 +6,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Component;
 
 import dani.daniel.helpDesk.api.User;
+import dani.daniel.helpDesk.api.dto.CacheStatistics;
 
 @Component
 public interface UserService {
@@ -19,5 +20,7 @@ public interface UserService {
 	void delete (String id);
 	
 	Page<User> findAll(int page, int count);
+	
+	CacheStatistics cacheStatistics();
 
 }
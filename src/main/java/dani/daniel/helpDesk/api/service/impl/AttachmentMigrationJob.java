@@ -0,0 +1,117 @@
+package dani.daniel.helpDesk.api.service.impl;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import dani.daniel.helpDesk.api.Attachment;
+import dani.daniel.helpDesk.api.Ticket;
+import dani.daniel.helpDesk.api.service.AttachmentService;
+import dani.daniel.helpDesk.api.service.TicketCounterService;
+
+/**
+ * Moves images still stored inline in tickets to GridFS, a batch of ids at a
+ * time and one image in memory at a time, after the application is up. A
+ * ticket changed while its image was being stored is left for the next pass
+ * and the file stored for it is removed.
+ */
+@Component
+public class AttachmentMigrationJob {
+	
+	private final Log logger = LogFactory.getLog(this.getClass());
+	
+	@Autowired
+	private MongoTemplate mongoTemplate;
+	
+	@Autowired
+	private AttachmentService attachmentService;
+	
+	@Autowired
+	private TicketCache ticketCache;
+	
+	@Autowired
+	private TicketCounterService ticketCounterService;
+	
+	@Value("${ticket.attachment.migration.enabled:true}")
+	private boolean enabled;
+	
+	@Value("${ticket.attachment.migration.batch-size:50}")
+	private int batchSize;
+
+	@Async
+	@EventListener(ApplicationReadyEvent.class)
+	public void migrate() {
+		if (!enabled) {
+			return;
+		}
+		Set<Object> failed = new HashSet<Object>();
+		int migrated = 0;
+		int batch;
+		do {
+			batch = migrateBatch(failed);
+			migrated += batch;
+			if (batch > 0) {
+				ticketCounterService.touch();
+			}
+		} while (batch > 0);
+		if (migrated > 0 || !failed.isEmpty()) {
+			logger.info("HelpDesk-API | moved " + migrated + " inline images to GridFS, " + failed.size() + " failed");
+		}
+	}
+	
+	int migrateBatch(Set<Object> failed) {
+		Query pending = new Query(where("image").ne(null).and("_id").nin(failed)).limit(batchSize);
+		pending.fields().include("_id");
+		List<Document> ids = mongoTemplate.find(pending, Document.class, mongoTemplate.getCollectionName(Ticket.class));
+		int migrated = 0;
+		for (Document id : ids) {
+			Object ticketId = id.get("_id");
+			try {
+				Query byId = new Query(where("_id").is(ticketId));
+				byId.fields().include("image").include("number").include("version");
+				Document ticket = mongoTemplate.findOne(byId, Document.class, mongoTemplate.getCollectionName(Ticket.class));
+				if (ticket == null || ticket.getString("image") == null) {
+					continue;
+				}
+				Attachment attachment = attachmentService.store(ticket.getString("image"), "ticket-" + ticket.get("number"));
+				if (!replaceImage(ticketId, ticket.get("version"), attachment)) {
+					attachmentService.delete(attachment);
+					continue;
+				}
+				ticketCache.invalidate(ticketId.toString());
+				migrated++;
+			} catch (Exception e) {
+				failed.add(ticketId);
+				logger.warn("HelpDesk-API | could not move image of ticket " + ticketId + ": " + e.getMessage());
+			}
+		}
+		return migrated;
+	}
+	
+	/**
+	 * Swaps the image for the stored attachment only if the ticket still has
+	 * the image and the version it was read with, so a concurrent edit or
+	 * another node running the job is never overwritten.
+	 */
+	private boolean replaceImage(Object ticketId, Object version, Attachment attachment) {
+		Query unchanged = new Query(where("_id").is(ticketId).and("image").exists(true).and("version").is(version));
+		Update update = new Update().set("attachment", attachment).unset("image").inc("version", 1);
+		return mongoTemplate.updateFirst(unchanged, update, Ticket.class).getMatchedCount() > 0;
+	}
+
+}
@@ -0,0 +1,122 @@
+package dani.daniel.helpDesk.api.service.impl;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+import org.springframework.stereotype.Service;
+
+import com.mongodb.client.gridfs.model.GridFSFile;
+
+import dani.daniel.helpDesk.api.Attachment;
+import dani.daniel.helpDesk.api.service.AttachmentService;
+
+/**
+ * Stores ticket attachments in GridFS. Images still arrive as base64, either
+ * plain or as a {@code data:} URL, and are decoded once on the way in.
+ */
+@Service
+public class AttachmentServiceImpl implements AttachmentService {
+	
+	static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+	
+	@Autowired
+	private GridFsTemplate gridFsTemplate;
+
+	@Override
+	public Attachment store(String image, String filename) {
+		String contentType = DEFAULT_CONTENT_TYPE;
+		String data = image;
+		if (image.startsWith("data:") && image.indexOf(',') > 0) {
+			String header = image.substring("data:".length(), image.indexOf(','));
+			data = image.substring(image.indexOf(',') + 1);
+			String mediaType = header.endsWith(";base64") ? header.substring(0, header.length() - ";base64".length()) : header;
+			if (!mediaType.isEmpty()) {
+				contentType = mediaType;
+			}
+		}
+		byte[] content;
+		try {
+			content = Base64.getMimeDecoder().decode(data);
+		} catch (IllegalArgumentException e) {
+			content = image.getBytes(StandardCharsets.UTF_8);
+			contentType = DEFAULT_CONTENT_TYPE;
+		}
+		ObjectId id = gridFsTemplate.store(new ByteArrayInputStream(content), filename, contentType);
+		
+		Attachment attachment = new Attachment();
+		attachment.setId(id.toHexString());
+		attachment.setFilename(filename);
+		attachment.setContentType(contentType);
+		attachment.setLength(content.length);
+		return attachment;
+	}
+
+	@Override
+	public Resource load(Attachment attachment) {
+		if (attachment.getId() == null || !ObjectId.isValid(attachment.getId())) {
+			return null;
+		}
+		GridFSFile file = gridFsTemplate.findOne(query(where("_id").is(new ObjectId(attachment.getId()))));
+		if (file == null) {
+			return null;
+		}
+		return new GridFsFileResource(file);
+	}
+
+	@Override
+	public void delete(Attachment attachment) {
+		if (attachment != null && attachment.getId() != null && ObjectId.isValid(attachment.getId())) {
+			gridFsTemplate.delete(query(where("_id").is(new ObjectId(attachment.getId()))));
+		}
+	}
+	
+	/**
+	 * Opens a new download stream on every read, so Spring can serve byte
+	 * ranges without buffering the file.
+	 */
+	private class GridFsFileResource extends AbstractResource {
+		
+		private final GridFSFile file;
+		
+		GridFsFileResource(GridFSFile file) {
+			this.file = file;
+		}
+
+		@Override
+		public InputStream getInputStream() throws IOException {
+			return gridFsTemplate.getResource(file).getInputStream();
+		}
+		
+		@Override
+		public long contentLength() {
+			return file.getLength();
+		}
+		
+		@Override
+		public String getFilename() {
+			return file.getFilename();
+		}
+		
+		@Override
+		public long lastModified() {
+			return file.getUploadDate().getTime();
+		}
+
+		@Override
+		public String getDescription() {
+			return "GridFS file [" + file.getObjectId().toHexString() + "]";
+		}
+	}
+
+}
@@ -0,0 +1,177 @@
+package dani.daniel.helpDesk.api.service.impl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.bson.Document;
+import org.bson.codecs.Codec;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+
+import com.mongodb.MongoClientSettings;
+
+/**
+ * Append-only local log of the audit rows waiting in the write-behind queue.
+ * Each row is appended before it is queued and a segment file is deleted once
+ * every row in it was inserted, so rows still on disk at startup are exactly
+ * the ones a crash may have lost. Rows carry their own {@code _id}, which
+ * makes replaying them idempotent. Lines are extended JSON written with the
+ * driver's codecs, so {@code DBRef}s, dates and longs read back unchanged.
+ */
+class ChangeStatusJournal {
+	
+	private static final String PREFIX = "change-status-";
+	private static final String SUFFIX = ".log";
+	private static final Codec<Document> CODEC = MongoClientSettings.getDefaultCodecRegistry().get(Document.class);
+	private static final JsonWriterSettings JSON = JsonWriterSettings.builder().outputMode(JsonMode.EXTENDED).build();
+	
+	private final Path directory;
+	private final boolean fsync;
+	private final int segmentRows;
+	private final Lock lock = new ReentrantLock();
+	
+	private Segment current;
+	private long sequence;
+	private final long recoverable;
+	
+	ChangeStatusJournal(Path directory, boolean fsync, int segmentRows) throws IOException {
+		this.directory = directory;
+		this.fsync = fsync;
+		this.segmentRows = segmentRows;
+		Files.createDirectories(directory);
+		for (Path file : files()) {
+			sequence = Math.max(sequence, sequenceOf(file));
+		}
+		recoverable = sequence;
+	}
+	
+	List<Segment> recover() throws IOException {
+		List<Segment> segments = new ArrayList<Segment>();
+		for (Path file : files()) {
+			if (sequenceOf(file) > recoverable) {
+				continue;
+			}
+			Segment segment = new Segment(file, null);
+			for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+				if (!line.trim().isEmpty()) {
+					segment.recovered.add(Document.parse(line, CODEC));
+				}
+			}
+			segment.pending = segment.recovered.size();
+			segments.add(segment);
+		}
+		return segments;
+	}
+	
+	Segment append(Document row) throws IOException {
+		byte[] line = (row.toJson(JSON, CODEC) + "\n").getBytes(StandardCharsets.UTF_8);
+		lock.lock();
+		try {
+			if (current == null || current.rows >= segmentRows) {
+				rotate();
+			}
+			current.channel.write(ByteBuffer.wrap(line));
+			if (fsync) {
+				current.channel.force(false);
+			}
+			current.rows++;
+			current.pending++;
+			return current;
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	void done(Segment segment, int rows) throws IOException {
+		lock.lock();
+		try {
+			segment.pending -= rows;
+			if (segment != current && segment.pending <= 0) {
+				segment.delete();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	void close() throws IOException {
+		lock.lock();
+		try {
+			if (current != null) {
+				Segment closing = current;
+				current = null;
+				closing.channel.close();
+				if (closing.pending <= 0) {
+					closing.delete();
+				}
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	private void rotate() throws IOException {
+		Segment previous = current;
+		Path file = directory.resolve(PREFIX + (++sequence) + SUFFIX);
+		current = new Segment(file, FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE));
+		if (previous != null) {
+			previous.channel.close();
+			if (previous.pending <= 0) {
+				previous.delete();
+			}
+		}
+	}
+	
+	private List<Path> files() throws IOException {
+		List<Path> files = new ArrayList<Path>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+			for (Path file : stream) {
+				files.add(file);
+			}
+		}
+		Collections.sort(files, (a, b) -> Long.compare(sequenceOf(a), sequenceOf(b)));
+		return files;
+	}
+	
+	private static long sequenceOf(Path file) {
+		String name = file.getFileName().toString();
+		return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+	}
+	
+	static class Segment {
+		
+		private final Path file;
+		private final FileChannel channel;
+		private final List<Document> recovered = new ArrayList<Document>();
+		private int rows;
+		private int pending;
+		
+		private Segment(Path file, FileChannel channel) {
+			this.file = file;
+			this.channel = channel;
+		}
+		
+		List<Document> getRecovered() {
+			return recovered;
+		}
+		
+		private void delete() throws IOException {
+			if (channel != null && channel.isOpen()) {
+				channel.close();
+			}
+			Files.deleteIfExists(file);
+		}
+	}
+
+}
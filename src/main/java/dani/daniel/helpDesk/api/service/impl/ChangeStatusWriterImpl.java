@@ -0,0 +1,276 @@
+package dani.daniel.helpDesk.api.service.impl;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.InsertManyOptions;
+
+import dani.daniel.helpDesk.api.ChangeStatus;
+import dani.daniel.helpDesk.api.service.ChangeStatusWriter;
+
+/**
+ * Write-behind for the status history: rows are appended to a local journal,
+ * queued, and inserted by a single writer thread in unordered batches. When
+ * the queue stays full the caller inserts its own rows, which slows producers
+ * down instead of dropping audit entries. Rows left in the journal by a crash
+ * are inserted again on the next startup.
+ */
+@Service
+public class ChangeStatusWriterImpl implements ChangeStatusWriter {
+
+	private static final int DUPLICATE_KEY = 11000;
+
+	private final Log logger = LogFactory.getLog(this.getClass());
+
+	@Autowired
+	private MongoTemplate mongoTemplate;
+
+	@Value("${change-status.queue-capacity:10000}")
+	private int queueCapacity;
+
+	@Value("${change-status.batch-size:500}")
+	private int batchSize;
+
+	@Value("${change-status.flush-interval:200}")
+	private long flushInterval;
+
+	@Value("${change-status.offer-timeout:100}")
+	private long offerTimeout;
+
+	@Value("${change-status.retry-interval:1000}")
+	private long retryInterval;
+
+	@Value("${change-status.journal.dir:journal/change-status}")
+	private String journalDir;
+
+	@Value("${change-status.journal.fsync:false}")
+	private boolean fsync;
+
+	private BlockingQueue<Entry> queue;
+	private ChangeStatusJournal journal;
+	private final Deque<List<Entry>> recovered = new ArrayDeque<List<Entry>>();
+	private long nextReplay;
+	private Thread writer;
+	private volatile boolean running;
+
+	@PostConstruct
+	public void start() throws IOException {
+		queue = new ArrayBlockingQueue<Entry>(queueCapacity);
+		journal = new ChangeStatusJournal(Paths.get(journalDir), fsync, batchSize * 10);
+		recover();
+		running = true;
+		writer = new Thread(this::run, "change-status-writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	@PreDestroy
+	public void stop() throws InterruptedException, IOException {
+		running = false;
+		writer.interrupt();
+		writer.join(TimeUnit.SECONDS.toMillis(30));
+		journal.close();
+	}
+
+	@Override
+	public void write(ChangeStatus changeStatus) {
+		writeAll(Collections.singletonList(changeStatus));
+	}
+
+	@Override
+	public void writeAll(List<ChangeStatus> changes) {
+		List<Entry> rejected = new ArrayList<Entry>();
+		for (ChangeStatus changeStatus : changes) {
+			if (changeStatus.getId() == null) {
+				changeStatus.setId(new ObjectId().toHexString());
+			}
+			Document row = new Document();
+			this.mongoTemplate.getConverter().write(changeStatus, row);
+			Entry entry;
+			try {
+				entry = new Entry(row, journal.append(row));
+			} catch (IOException e) {
+				logger.warn("HelpDesk-API | Status history journal unavailable, writing directly", e);
+				entry = new Entry(row, null);
+			}
+			if (!running || !offer(entry)) {
+				rejected.add(entry);
+			}
+		}
+		if (!rejected.isEmpty()) {
+			insert(rejected);
+			done(rejected);
+		}
+	}
+
+	private boolean offer(Entry entry) {
+		try {
+			return queue.offer(entry, offerTimeout, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	private void run() {
+		List<Entry> batch = new ArrayList<Entry>(batchSize);
+		while (running || !queue.isEmpty()) {
+			try {
+				Entry first = running ? queue.poll(recovered.isEmpty() ? 1000 : flushInterval, TimeUnit.MILLISECONDS) : queue.poll();
+				if (first == null) {
+					replay();
+					continue;
+				}
+				batch.add(first);
+				long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushInterval);
+				while (batch.size() < batchSize) {
+					long remaining = deadline - System.nanoTime();
+					Entry next = running && remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+					if (next == null) {
+						break;
+					}
+					batch.add(next);
+				}
+			} catch (InterruptedException e) {
+				// stop() interrupts the wait, the loop then drains what is left
+			}
+			if (!batch.isEmpty()) {
+				if (flush(batch)) {
+					done(batch);
+				}
+				batch.clear();
+			}
+			replay();
+		}
+	}
+
+	/**
+	 * Reads the rows left by a previous run before any write is accepted, so
+	 * the segments appended from now on are never mistaken for recovered ones.
+	 */
+	private void recover() throws IOException {
+		int rows = 0;
+		for (ChangeStatusJournal.Segment segment : journal.recover()) {
+			List<Entry> entries = new ArrayList<Entry>();
+			for (Document row : segment.getRecovered()) {
+				entries.add(new Entry(row, segment));
+			}
+			for (int from = 0; from < entries.size(); from += batchSize) {
+				recovered.add(new ArrayList<Entry>(entries.subList(from, Math.min(entries.size(), from + batchSize))));
+			}
+			rows += entries.size();
+		}
+		if (rows > 0) {
+			logger.info("HelpDesk-API | Replaying " + rows + " status history rows from the journal");
+		}
+	}
+
+	/**
+	 * Tries one recovered batch between live batches. A failure waits for the
+	 * retry interval instead of holding the queue, and whatever is not written
+	 * by shutdown stays in the journal.
+	 */
+	private void replay() {
+		if (recovered.isEmpty() || !running || System.currentTimeMillis() < nextReplay) {
+			return;
+		}
+		List<Entry> batch = recovered.peek();
+		try {
+			insert(batch);
+		} catch (RuntimeException e) {
+			logger.warn("HelpDesk-API | Recovered status history batch failed, retrying later", e);
+			nextReplay = System.currentTimeMillis() + retryInterval;
+			return;
+		}
+		recovered.poll();
+		done(batch);
+	}
+
+	/**
+	 * Inserts the batch, retrying while the application is running. Returns
+	 * false when shutting down with the batch not written, leaving its rows
+	 * in the journal for the next startup.
+	 */
+	private boolean flush(List<Entry> batch) {
+		while (true) {
+			try {
+				insert(batch);
+				return true;
+			} catch (RuntimeException e) {
+				if (!running) {
+					logger.error("HelpDesk-API | " + batch.size() + " status history rows kept in the journal", e);
+					return false;
+				}
+				logger.warn("HelpDesk-API | Status history batch failed, retrying", e);
+				try {
+					Thread.sleep(retryInterval);
+				} catch (InterruptedException ie) {
+					// keep retrying until stop() has set running to false
+				}
+			}
+		}
+	}
+
+	private void insert(List<Entry> entries) {
+		List<Document> rows = new ArrayList<Document>(entries.size());
+		for (Entry entry : entries) {
+			rows.add(entry.row);
+		}
+		try {
+			this.mongoTemplate.getCollection(this.mongoTemplate.getCollectionName(ChangeStatus.class))
+					.insertMany(rows, new InsertManyOptions().ordered(false));
+		} catch (MongoBulkWriteException e) {
+			for (BulkWriteError error : e.getWriteErrors()) {
+				if (error.getCode() != DUPLICATE_KEY) {
+					throw e;
+				}
+			}
+		}
+	}
+
+	private void done(List<Entry> entries) {
+		for (Entry entry : entries) {
+			if (entry.segment != null) {
+				try {
+					journal.done(entry.segment, 1);
+				} catch (IOException e) {
+					logger.warn("HelpDesk-API | Status history journal segment could not be removed", e);
+				}
+			}
+		}
+	}
+
+	private static class Entry {
+
+		private final Document row;
+		private final ChangeStatusJournal.Segment segment;
+
+		private Entry(Document row, ChangeStatusJournal.Segment segment) {
+			this.row = row;
+			this.segment = segment;
+		}
+	}
+
+}
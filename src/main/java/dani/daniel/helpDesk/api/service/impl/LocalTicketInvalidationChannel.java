@@ -0,0 +1,36 @@
+package dani.daniel.helpDesk.api.service.impl;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import dani.daniel.helpDesk.api.service.TicketInvalidationChannel;
+
+/**
+ * In-memory channel for a single instance: ids are handed to the listeners of
+ * this JVM only. Several caches subscribed to the same instance behave like
+ * separate nodes sharing a broker.
+ */
+@Component
+@ConditionalOnProperty(name = "ticket.cache.invalidation", havingValue = "local", matchIfMissing = true)
+public class LocalTicketInvalidationChannel implements TicketInvalidationChannel {
+	
+	private final List<Consumer<Collection<String>>> listeners = new CopyOnWriteArrayList<Consumer<Collection<String>>>();
+
+	@Override
+	public void publish(Collection<String> ids) {
+		for (Consumer<Collection<String>> listener : listeners) {
+			listener.accept(ids);
+		}
+	}
+
+	@Override
+	public void subscribe(Consumer<Collection<String>> listener) {
+		listeners.add(listener);
+	}
+
+}
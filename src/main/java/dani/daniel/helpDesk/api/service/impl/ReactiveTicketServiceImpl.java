@@ -0,0 +1,176 @@
+package dani.daniel.helpDesk.api.service.impl;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import java.util.Date;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import dani.daniel.helpDesk.api.Attachment;
+import dani.daniel.helpDesk.api.ChangeStatus;
+import dani.daniel.helpDesk.api.Ticket;
+import dani.daniel.helpDesk.api.User;
+import dani.daniel.helpDesk.api.dto.Summary;
+import dani.daniel.helpDesk.api.dto.TicketFilter;
+import dani.daniel.helpDesk.api.enums.StatusEnum;
+import dani.daniel.helpDesk.api.repository.ReactiveTicketRepository;
+import dani.daniel.helpDesk.api.repository.TicketRepositoryImpl;
+import dani.daniel.helpDesk.api.service.AttachmentService;
+import dani.daniel.helpDesk.api.service.ReactiveTicketService;
+import dani.daniel.helpDesk.api.service.SequenceService;
+import dani.daniel.helpDesk.api.service.StatusTransitionException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Reactive counterpart of {@link TicketServiceImpl}. Mongo reads and writes
+ * never block; GridFS attachments and the sequence block refill still use the
+ * blocking driver, so they run on the bounded elastic scheduler.
+ */
+@Service
+public class ReactiveTicketServiceImpl implements ReactiveTicketService {
+	
+	@Autowired
+	private ReactiveTicketRepository ticketRepository;
+	
+	@Autowired
+	private ReactiveMongoTemplate mongoTemplate;
+	
+	@Autowired
+	private SequenceService sequenceService;
+	
+	@Autowired
+	private AttachmentService attachmentService;
+
+	@Override
+	public Mono<Ticket> createOrUpdate(Ticket ticket) {
+		Mono<Ticket> previous = ticket.getId() != null ? this.ticketRepository.findStateById(ticket.getId()) : Mono.empty();
+		return previous.map(Optional::of).defaultIfEmpty(Optional.empty())
+				.flatMap(state -> {
+					state.ifPresent(current -> TicketRepositoryImpl.expectVersion(ticket, current));
+					return storeImage(ticket)
+							.then(this.ticketRepository.save(ticket))
+							.flatMap(ticketPersisted -> afterSave(state.orElse(null), ticketPersisted).thenReturn(ticketPersisted));
+				});
+	}
+	
+	private Mono<Void> afterSave(Ticket previous, Ticket ticketPersisted) {
+		if (previous == null) {
+			return moveCounter(null, ticketPersisted.getStatus());
+		}
+		return deleteReplaced(previous.getAttachment(), ticketPersisted.getAttachment())
+				.then(moveCounter(previous.getStatus(), ticketPersisted.getStatus()));
+	}
+
+	@Override
+	public Mono<Ticket> findById(String id) {
+		return this.ticketRepository.findById(id);
+	}
+
+	@Override
+	public Mono<Ticket> delete(String id) {
+		return this.ticketRepository.deleteAndGetState(id)
+				.flatMap(ticket -> blocking(() -> this.attachmentService.delete(ticket.getAttachment()))
+						.then(moveCounter(ticket.getStatus(), null))
+						.thenReturn(ticket));
+	}
+
+	@Override
+	public Mono<Page<Ticket>> findByFilter(TicketFilter filter, int page, int count) {
+		return this.ticketRepository.findPageByFilter(filter, page, count);
+	}
+
+	@Override
+	public Mono<List<ChangeStatus>> listChangeStatus(String ticketId) {
+		return this.ticketRepository.findHistoryByTicketId(ticketId);
+	}
+
+	@Override
+	public Mono<Ticket> changeStatus(String id, StatusEnum status, User userChange) {
+		User assignedUser = status == StatusEnum.Assigned ? userChange : null;
+		return this.ticketRepository.changeStatus(id, status, assignedUser)
+				.switchIfEmpty(Mono.defer(() -> this.ticketRepository.findStateById(id)
+						.switchIfEmpty(Mono.error(new NoSuchElementException("Register not found id: " + id)))
+						.flatMap(current -> Mono.<Ticket>error(new StatusTransitionException(
+								"Ticket status is " + current.getStatus() + ", it cannot change to " + status)))))
+				.flatMap(ticket -> {
+					StatusEnum previous = ticket.getStatus();
+					ticket.setStatus(status);
+					ticket.setVersion(TicketRepositoryImpl.nextVersion(ticket.getVersion()));
+					if (assignedUser != null) {
+						ticket.setAssignedUser(assignedUser);
+					}
+					ChangeStatus changeStatus = new ChangeStatus();
+					changeStatus.setUserChange(userChange);
+					changeStatus.setDateChangeStatus(new Date());
+					changeStatus.setStatus(status);
+					changeStatus.setTicket(ticket);
+					return moveCounter(previous, status)
+							.then(this.mongoTemplate.insert(changeStatus))
+							.thenReturn(ticket);
+				});
+	}
+
+	@Override
+	public Mono<Summary> findSummary(String userId, String assignedUserId, Date from, Date to) {
+		if (userId == null && assignedUserId == null && from == null && to == null) {
+			return this.mongoTemplate.findById(TicketCounterServiceImpl.SUMMARY_ID, Document.class, TicketCounterServiceImpl.COLLECTION)
+					.map(TicketCounterServiceImpl::toSummary)
+					.switchIfEmpty(Mono.defer(() -> this.ticketRepository.summarize(null, null, null, null)));
+		}
+		return this.ticketRepository.summarize(userId, assignedUserId, from, to);
+	}
+
+	@Override
+	public Mono<Integer> generateNumber() {
+		return Mono.fromCallable(() -> (int) this.sequenceService.next(SequenceService.TICKET_NUMBER))
+				.subscribeOn(Schedulers.boundedElastic());
+	}
+	
+	private Mono<Void> storeImage(Ticket ticket) {
+		if (ticket.getImage() == null || ticket.getImage().isEmpty()) {
+			ticket.setImage(null);
+			return Mono.empty();
+		}
+		return Mono.fromCallable(() -> this.attachmentService.store(ticket.getImage(), "ticket-" + ticket.getNumber()))
+				.subscribeOn(Schedulers.boundedElastic())
+				.doOnNext(attachment -> {
+					ticket.setAttachment(attachment);
+					ticket.setImage(null);
+				})
+				.then();
+	}
+	
+	private Mono<Void> deleteReplaced(Attachment previous, Attachment current) {
+		if (previous == null || (current != null && previous.getId().equals(current.getId()))) {
+			return Mono.empty();
+		}
+		return blocking(() -> this.attachmentService.delete(previous));
+	}
+	
+	private Mono<Void> moveCounter(StatusEnum from, StatusEnum to) {
+		Update update = new Update().inc(TicketCounterServiceImpl.CHANGES, 1);
+		if (from != null && from != to) {
+			update.inc(from.name(), -1);
+		}
+		if (to != null && from != to) {
+			update.inc(to.name(), 1);
+		}
+		return this.mongoTemplate.upsert(query(where("_id").is(TicketCounterServiceImpl.SUMMARY_ID)), update,
+				TicketCounterServiceImpl.COLLECTION).then();
+	}
+	
+	private Mono<Void> blocking(Runnable task) {
+		return Mono.fromRunnable(task).subscribeOn(Schedulers.boundedElastic()).then();
+	}
+
+}
@@ -0,0 +1,55 @@
+package dani.daniel.helpDesk.api.service.impl;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import dani.daniel.helpDesk.api.User;
+import dani.daniel.helpDesk.api.repository.ReactiveUserRepository;
+import dani.daniel.helpDesk.api.security.service.UserDetailsCache;
+import dani.daniel.helpDesk.api.service.ReactiveUserService;
+import reactor.core.publisher.Mono;
+
+@Component
+public class ReactiveUserServiceImpl implements ReactiveUserService {
+	
+	@Autowired
+	ReactiveUserRepository userRepository;
+	
+	@Autowired
+	UserDetailsCache userDetailsCache;
+
+	@Override
+	public Mono<User> findByEmail(String email) {
+		return this.userRepository.findByEmail(email);
+	}
+
+	@Override
+	public Mono<User> createOrUpdate(User user) {
+		return this.userRepository.save(user)
+				.doOnNext(userPersisted -> this.userDetailsCache.invalidate(userPersisted.getId(), userPersisted.getEmail()));
+	}
+
+	@Override
+	public Mono<User> findById(String id) {
+		return this.userRepository.findById(id);
+	}
+
+	@Override
+	public Mono<Void> delete(String id) {
+		return this.userRepository.deleteById(id)
+				.doOnSuccess(done -> this.userDetailsCache.invalidate(id, null));
+	}
+
+	@Override
+	public Mono<Page<User>> findAll(int page, int count) {
+		Pageable pages = PageRequest.of(page, count);
+		return this.userRepository.findAllBy(pages).collectList()
+				.zipWith(this.userRepository.count())
+				.map(result -> new PageImpl<User>(result.getT1(), pages, result.getT2()));
+	}
+
+}
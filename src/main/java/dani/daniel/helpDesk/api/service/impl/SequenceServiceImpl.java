@@ -0,0 +1,83 @@
+package dani.daniel.helpDesk.api.service.impl;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import dani.daniel.helpDesk.api.service.SequenceService;
+
+/**
+ * Hi/lo sequence: each instance reserves a block of values with one atomic
+ * {@code findAndModify $inc} and hands them out from memory, so instances
+ * never share a value and most calls need no round trip.
+ */
+@Service
+public class SequenceServiceImpl implements SequenceService {
+	
+	static final String COLLECTION = "sequences";
+	
+	@Autowired
+	private MongoTemplate mongoTemplate;
+	
+	@Value("${sequence.block-size:50}")
+	private long blockSize;
+	
+	private final Map<String, Block> blocks = new ConcurrentHashMap<String, Block>();
+
+	@Override
+	public long next(String name) {
+		Block block = blocks.computeIfAbsent(name, key -> new Block());
+		block.lock.lock();
+		try {
+			if (block.next > block.max) {
+				long max = allocate(name, blockSize);
+				block.next = max - blockSize + 1;
+				block.max = max;
+			}
+			return block.next++;
+		} finally {
+			block.lock.unlock();
+		}
+	}
+
+	@Override
+	public long nextBlock(String name, int size) {
+		return allocate(name, size) - size + 1;
+	}
+
+	@Override
+	public void ensureAtLeast(String name, long value) {
+		mongoTemplate.upsert(query(where("_id").is(name)), new Update().max("value", value), COLLECTION);
+	}
+	
+	private long allocate(String name, long amount) {
+		Document sequence = mongoTemplate.findAndModify(query(where("_id").is(name)),
+				new Update().inc("value", amount),
+				FindAndModifyOptions.options().returnNew(true).upsert(true),
+				Document.class, COLLECTION);
+		return ((Number) sequence.get("value")).longValue();
+	}
+	
+	/**
+	 * Guarded by a lock rather than a monitor so a virtual thread waiting on the
+	 * refill round trip does not pin its carrier thread.
+	 */
+	private static class Block {
+		private final Lock lock = new ReentrantLock();
+		private long next = 1;
+		private long max = 0;
+	}
+
+}
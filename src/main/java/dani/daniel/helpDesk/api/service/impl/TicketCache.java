@@ -0,0 +1,87 @@
+package dani.daniel.helpDesk.api.service.impl;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import dani.daniel.helpDesk.api.Ticket;
+import dani.daniel.helpDesk.api.dto.CacheStatistics;
+import dani.daniel.helpDesk.api.service.TicketInvalidationChannel;
+
+/**
+ * Keeps tickets read by id, with their users already resolved, bounded by size
+ * and TTL. Writers invalidate through the {@link TicketInvalidationChannel} so
+ * other instances drop their copy as well. Callers get a shallow copy and may
+ * set transient fields such as the status history on it.
+ */
+@Component
+public class TicketCache {
+
+	private final Cache<String, Ticket> cache;
+
+	@Autowired
+	private TicketInvalidationChannel invalidationChannel;
+
+	public TicketCache(@Value("${ticket.cache.size:10000}") long maximumSize,
+					   @Value("${ticket.cache.ttl:60}") long ttlSeconds) {
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+				.recordStats()
+				.build();
+	}
+
+	@PostConstruct
+	public void subscribe() {
+		invalidationChannel.subscribe(cache::invalidateAll);
+	}
+
+	public Optional<Ticket> get(String id, Function<String, Ticket> loader) {
+		return Optional.ofNullable(cache.get(id, loader)).map(TicketCache::copy);
+	}
+
+	public void invalidate(String id) {
+		invalidate(Collections.singletonList(id));
+	}
+
+	public void invalidate(Collection<String> ids) {
+		if (ids.isEmpty()) {
+			return;
+		}
+		cache.invalidateAll(ids);
+		invalidationChannel.publish(ids);
+	}
+
+	public CacheStatistics stats() {
+		return new CacheStatistics(cache.estimatedSize(), cache.stats());
+	}
+
+	private static Ticket copy(Ticket cached) {
+		Ticket ticket = new Ticket();
+		ticket.setId(cached.getId());
+		ticket.setVersion(cached.getVersion());
+		ticket.setUser(cached.getUser());
+		ticket.setDate(cached.getDate());
+		ticket.setTitle(cached.getTitle());
+		ticket.setNumber(cached.getNumber());
+		ticket.setStatus(cached.getStatus());
+		ticket.setPriority(cached.getPriority());
+		ticket.setAssignedUser(cached.getAssignedUser());
+		ticket.setDescription(cached.getDescription());
+		ticket.setImage(cached.getImage());
+		ticket.setAttachment(cached.getAttachment());
+		return ticket;
+	}
+
+}
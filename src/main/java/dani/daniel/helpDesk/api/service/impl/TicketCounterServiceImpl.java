@@ -0,0 +1,164 @@
+package dani.daniel.helpDesk.api.service.impl;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import dani.daniel.helpDesk.api.dto.Summary;
+import dani.daniel.helpDesk.api.enums.StatusEnum;
+import dani.daniel.helpDesk.api.repository.TicketRepository;
+import dani.daniel.helpDesk.api.service.TicketCounterService;
+
+/**
+ * Keeps one document with the amount of tickets per status, moved with
+ * {@code $inc} on every ticket write so the summary is a single read. The
+ * same document counts the writes themselves, which versions the list and
+ * summary responses. The scheduled reconciliation rebuilds the amounts from
+ * the tickets collection.
+ */
+@Service
+public class TicketCounterServiceImpl implements TicketCounterService {
+	
+	static final String COLLECTION = "ticketCounters";
+	static final String SUMMARY_ID = "status";
+	static final String CHANGES = "changes";
+	static final int REBUILD_ATTEMPTS = 3;
+	
+	private final Log logger = LogFactory.getLog(this.getClass());
+	
+	@Autowired
+	private MongoTemplate mongoTemplate;
+	
+	@Autowired
+	private TicketRepository ticketRepository;
+
+	@Override
+	public void move(StatusEnum from, StatusEnum to) {
+		move(from, to, 1);
+	}
+
+	@Override
+	public void move(StatusEnum from, StatusEnum to, long amount) {
+		if (amount == 0) {
+			return;
+		}
+		Update update = new Update().inc(CHANGES, 1);
+		if (from != null && from != to) {
+			update.inc(from.name(), -amount);
+		}
+		if (to != null && from != to) {
+			update.inc(to.name(), amount);
+		}
+		mongoTemplate.upsert(query(where("_id").is(SUMMARY_ID)), update, COLLECTION);
+	}
+
+	@Override
+	public void touch() {
+		mongoTemplate.upsert(query(where("_id").is(SUMMARY_ID)), new Update().inc(CHANGES, 1), COLLECTION);
+	}
+
+	@Override
+	public long changes() {
+		Long changes = readChanges();
+		return changes != null ? changes : 0;
+	}
+	
+	private Long readChanges() {
+		Query byId = query(where("_id").is(SUMMARY_ID));
+		byId.fields().include(CHANGES);
+		Document counters = mongoTemplate.findOne(byId, Document.class, COLLECTION);
+		Object changes = counters != null ? counters.get(CHANGES) : null;
+		return changes instanceof Number ? ((Number) changes).longValue() : null;
+	}
+
+	@Override
+	public Summary read() {
+		Document counters = mongoTemplate.findById(SUMMARY_ID, Document.class, COLLECTION);
+		if (counters == null) {
+			return rebuild();
+		}
+		return toSummary(counters);
+	}
+	
+	static Summary toSummary(Document counters) {
+		Summary summary = new Summary();
+		summary.setAmountNew(amount(counters, StatusEnum.New));
+		summary.setAmountAssigned(amount(counters, StatusEnum.Assigned));
+		summary.setAmountResolved(amount(counters, StatusEnum.Resolved));
+		summary.setAmountApproved(amount(counters, StatusEnum.Approved));
+		summary.setAmountDisapproved(amount(counters, StatusEnum.Disapproved));
+		summary.setAmountClosed(amount(counters, StatusEnum.Closed));
+		return summary;
+	}
+
+	@Override
+	public Summary rebuild() {
+		Summary summary = null;
+		for (int attempt = 0; attempt < REBUILD_ATTEMPTS; attempt++) {
+			Long changes = readChanges();
+			summary = ticketRepository.summarize(null, null, null, null);
+			if (store(summary, changes)) {
+				return summary;
+			}
+		}
+		logger.info("HelpDesk-API | ticket counters kept moving during rebuild, left to the next reconciliation");
+		return summary;
+	}
+	
+	/**
+	 * Overwrites the amounts only if no write counted itself since
+	 * {@code changes} was read; a mismatch makes the upsert collide on
+	 * {@code _id}. This only protects an {@code $inc} that lands before the
+	 * store. A ticket write and its {@code $inc} are two operations, so a write
+	 * the aggregation already saw but whose {@code $inc} arrives after the
+	 * store is applied twice: a create is over-counted, a move leaves one
+	 * status high and the other low. The amounts stay off by those in-flight
+	 * writes until the next reconciliation, {@code ticket.counters.reconcile-interval}
+	 * (one hour by default).
+	 */
+	private boolean store(Summary summary, Long changes) {
+		Criteria unchanged = where("_id").is(SUMMARY_ID).and(CHANGES);
+		unchanged = changes != null ? unchanged.is(changes) : unchanged.exists(false);
+		Update update = new Update()
+				.set(StatusEnum.New.name(), summary.getAmountNew())
+				.set(StatusEnum.Assigned.name(), summary.getAmountAssigned())
+				.set(StatusEnum.Resolved.name(), summary.getAmountResolved())
+				.set(StatusEnum.Approved.name(), summary.getAmountApproved())
+				.set(StatusEnum.Disapproved.name(), summary.getAmountDisapproved())
+				.set(StatusEnum.Closed.name(), summary.getAmountClosed())
+				.inc(CHANGES, 1);
+		try {
+			mongoTemplate.upsert(query(unchanged), update, COLLECTION);
+			return true;
+		} catch (DuplicateKeyException e) {
+			return false;
+		}
+	}
+	
+	@Scheduled(initialDelayString = "${ticket.counters.reconcile-delay:60000}",
+			fixedDelayString = "${ticket.counters.reconcile-interval:3600000}")
+	public void reconcile() {
+		try {
+			rebuild();
+		} catch (Exception e) {
+			logger.warn("HelpDesk-API | ticket counters reconciliation failed: " + e.getMessage());
+		}
+	}
+	
+	private static Integer amount(Document counters, StatusEnum status) {
+		Object amount = counters.get(status.name());
+		return amount instanceof Number ? ((Number) amount).intValue() : 0;
+	}
+
+}
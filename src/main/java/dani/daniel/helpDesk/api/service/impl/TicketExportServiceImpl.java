@@ -0,0 +1,139 @@
+package dani.daniel.helpDesk.api.service.impl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.DBRef;
+
+import dani.daniel.helpDesk.api.dto.TicketFields;
+import dani.daniel.helpDesk.api.dto.TicketFilter;
+import dani.daniel.helpDesk.api.enums.ExportFormatEnum;
+import dani.daniel.helpDesk.api.repository.TicketRepository;
+import dani.daniel.helpDesk.api.service.TicketExportService;
+
+/**
+ * Writes tickets to the output as they come from a Mongo cursor, one row at a
+ * time, so memory does not grow with the size of the export. Rows are built
+ * from the raw documents: user references are written as ids and never
+ * loaded. Only a few exports may run at once.
+ */
+@Service
+public class TicketExportServiceImpl implements TicketExportService {
+	
+	@Autowired
+	private TicketRepository ticketRepository;
+	
+	@Autowired
+	private ObjectMapper objectMapper;
+	
+	private final Semaphore running;
+	
+	public TicketExportServiceImpl(@Value("${ticket.export.max-concurrent:2}") int maxConcurrent) {
+		this.running = new Semaphore(maxConcurrent);
+	}
+
+	@Override
+	public boolean tryAcquire() {
+		return running.tryAcquire();
+	}
+
+	@Override
+	public void release() {
+		running.release();
+	}
+
+	@Override
+	public long export(TicketFilter filter, ExportFormatEnum format, OutputStream out) throws IOException {
+		List<String> columns = new ArrayList<String>(filter.getFields() != null ? filter.getFields() : TicketFields.ALLOWED);
+		Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+		if (format == ExportFormatEnum.csv) {
+			writeCsvRow(writer, new ArrayList<Object>(columns));
+		}
+		long rows = 0;
+		try (CloseableIterator<Document> tickets = ticketRepository.streamByFilter(filter)) {
+			while (tickets.hasNext()) {
+				Map<String, Object> row = row(tickets.next(), columns);
+				if (format == ExportFormatEnum.csv) {
+					writeCsvRow(writer, new ArrayList<Object>(row.values()));
+				} else {
+					writer.write(objectMapper.writeValueAsString(row));
+					writer.write('\n');
+				}
+				rows++;
+			}
+		}
+		writer.flush();
+		return rows;
+	}
+	
+	private Map<String, Object> row(Document document, List<String> columns) {
+		Map<String, Object> row = new LinkedHashMap<String, Object>();
+		for (String column : columns) {
+			row.put(column, plain(document.get(column.equals("id") ? "_id" : column)));
+		}
+		return row;
+	}
+	
+	private Object plain(Object value) {
+		if (value instanceof ObjectId) {
+			return ((ObjectId) value).toHexString();
+		}
+		if (value instanceof DBRef) {
+			return plain(((DBRef) value).getId());
+		}
+		if (value instanceof Date) {
+			return ((Date) value).toInstant().toString();
+		}
+		if (value instanceof Document) {
+			Map<String, Object> nested = new LinkedHashMap<String, Object>();
+			for (Map.Entry<String, Object> entry : ((Document) value).entrySet()) {
+				nested.put(entry.getKey().equals("_id") ? "id" : entry.getKey(), plain(entry.getValue()));
+			}
+			return nested;
+		}
+		return value;
+	}
+	
+	private void writeCsvRow(Writer writer, List<Object> values) throws IOException {
+		for (int i = 0; i < values.size(); i++) {
+			if (i > 0) {
+				writer.write(',');
+			}
+			Object value = values.get(i);
+			if (value instanceof Map) {
+				value = objectMapper.writeValueAsString(value);
+			}
+			writer.write(csv(value));
+		}
+		writer.write("\r\n");
+	}
+	
+	private static String csv(Object value) {
+		if (value == null) {
+			return "";
+		}
+		String text = value.toString();
+		if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+			return text;
+		}
+		return "\"" + text.replace("\"", "\"\"") + "\"";
+	}
+
+}
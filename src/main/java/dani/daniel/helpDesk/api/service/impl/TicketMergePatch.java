@@ -0,0 +1,93 @@
+package dani.daniel.helpDesk.api.service.impl;
+
+import java.util.Map;
+
+import org.springframework.data.mongodb.core.query.Update;
+
+import dani.daniel.helpDesk.api.enums.PriorityEnum;
+
+/**
+ * Turns an RFC 7396 merge patch into a targeted update: members set to a value
+ * become {@code $set}, members set to null become {@code $unset}. Only the
+ * fields a customer may edit are accepted. The image member is only validated
+ * here, it is stored as an attachment by the caller.
+ */
+class TicketMergePatch {
+	
+	static final String VERSION = "version";
+	
+	static final String IMAGE = "image";
+
+	private TicketMergePatch() {
+		
+	}
+	
+	static Update toUpdate(Map<String, Object> patch) {
+		if (patch == null || patch.isEmpty()) {
+			throw new IllegalArgumentException("Patch no information");
+		}
+		Update update = new Update();
+		for (Map.Entry<String, Object> member : patch.entrySet()) {
+			String field = member.getKey();
+			Object value = member.getValue();
+			switch (field) {
+			case VERSION :
+				break;
+			case "title" :
+				if (!(value instanceof String) || ((String) value).isEmpty()) {
+					throw new IllegalArgumentException("Title no information");
+				}
+				update.set(field, value);
+				break;
+			case "description" :
+				setOrUnset(update, field, requireString(field, value));
+				break;
+			case "priority" :
+				setOrUnset(update, field, value == null ? null : priority(value));
+				break;
+			case IMAGE :
+				requireString(field, value);
+				break;
+			default :
+				throw new IllegalArgumentException("Field cannot be patched: " + field);
+			}
+		}
+		return update;
+	}
+	
+	static Long version(Map<String, Object> patch) {
+		Object version = patch != null ? patch.get(VERSION) : null;
+		if (version == null) {
+			return null;
+		}
+		if (!(version instanceof Number)) {
+			throw new IllegalArgumentException("Invalid version: " + version);
+		}
+		return ((Number) version).longValue();
+	}
+	
+	private static void setOrUnset(Update update, String field, Object value) {
+		if (value == null) {
+			update.unset(field);
+		} else {
+			update.set(field, value);
+		}
+	}
+	
+	private static String requireString(String field, Object value) {
+		if (value != null && !(value instanceof String)) {
+			throw new IllegalArgumentException("Invalid " + field + ": " + value);
+		}
+		return (String) value;
+	}
+	
+	private static String priority(Object value) {
+		for (PriorityEnum priority : PriorityEnum.values()) {
+			if (priority.name().equals(value)) {
+				return priority.name();
+			}
+		}
+		throw new IllegalArgumentException("Invalid priority: " + value);
+	}
+
+}
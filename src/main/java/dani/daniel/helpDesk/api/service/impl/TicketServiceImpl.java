@@ -1,17 +1,50 @@
 package dani.daniel.helpDesk.api.service.impl;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+
+import dani.daniel.helpDesk.api.Attachment;
 import dani.daniel.helpDesk.api.ChangeStatus;
 import dani.daniel.helpDesk.api.Ticket;
+import dani.daniel.helpDesk.api.User;
+import dani.daniel.helpDesk.api.dto.CacheStatistics;
+import dani.daniel.helpDesk.api.dto.CursorPage;
+import dani.daniel.helpDesk.api.dto.Summary;
+import dani.daniel.helpDesk.api.dto.TicketImportResult;
+import dani.daniel.helpDesk.api.dto.TicketStatusMove;
+import dani.daniel.helpDesk.api.dto.TicketStatusResult;
+import dani.daniel.helpDesk.api.dto.TicketFilter;
+import dani.daniel.helpDesk.api.enums.StatusEnum;
 import dani.daniel.helpDesk.api.repository.ChangeStatusRepository;
 import dani.daniel.helpDesk.api.repository.TicketRepository;
+import dani.daniel.helpDesk.api.repository.TicketRepositoryImpl;
+import dani.daniel.helpDesk.api.repository.UserRepository;
+import dani.daniel.helpDesk.api.repository.UserReferenceResolver;
+import dani.daniel.helpDesk.api.service.AttachmentService;
+import dani.daniel.helpDesk.api.service.ChangeStatusWriter;
+import dani.daniel.helpDesk.api.service.SequenceService;
+import dani.daniel.helpDesk.api.service.StatusTransitionException;
+import dani.daniel.helpDesk.api.service.TicketCounterService;
 import dani.daniel.helpDesk.api.service.TicketService;
 
 @Service
@@ -22,68 +55,305 @@ public class TicketServiceImpl implements TicketService {
 	
 	@Autowired
 	private ChangeStatusRepository changeStatusRepository;
+	
+	@Autowired
+	private ChangeStatusWriter changeStatusWriter;
+	
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private TicketCounterService ticketCounterService;
+	
+	@Autowired
+	private SequenceService sequenceService;
+	
+	@Autowired
+	private AttachmentService attachmentService;
+	
+	@Autowired
+	private UserReferenceResolver userReferenceResolver;
+	
+	@Autowired
+	private TicketCache ticketCache;
+	
+	private final LoadingCache<TicketFilter, Long> approximateCounts;
+	
+	public TicketServiceImpl(@Value("${ticket.count-cache.refresh:30}") long refreshSeconds) {
+		this.approximateCounts = Caffeine.newBuilder()
+				.maximumSize(1000)
+				.refreshAfterWrite(refreshSeconds, TimeUnit.SECONDS)
+				.expireAfterAccess(10, TimeUnit.MINUTES)
+				.build(filter -> this.ticketRepository.countByFilter(filter));
+	}
 
 	public Ticket createOrUpdate(Ticket ticket) {
-		return this.ticketRepository.save(ticket);
+		Ticket previous = ticket.getId() != null ? this.ticketRepository.findStateById(ticket.getId()) : null;
+		if (previous != null) {
+			TicketRepositoryImpl.expectVersion(ticket, previous);
+		}
+		Attachment stored = null;
+		if (ticket.getImage() != null && !ticket.getImage().isEmpty()) {
+			stored = this.attachmentService.store(ticket.getImage(), "ticket-" + ticket.getNumber());
+			ticket.setAttachment(stored);
+		}
+		ticket.setImage(null);
+		Ticket ticketPersisted;
+		try {
+			ticketPersisted = this.ticketRepository.save(ticket);
+		} catch (OptimisticLockingFailureException e) {
+			this.attachmentService.delete(stored);
+			throw e;
+		}
+		if (previous != null) {
+			if (previous.getAttachment() != null && (ticketPersisted.getAttachment() == null
+					|| !previous.getAttachment().getId().equals(ticketPersisted.getAttachment().getId()))) {
+				this.attachmentService.delete(previous.getAttachment());
+			}
+			this.ticketCounterService.move(previous.getStatus(), ticketPersisted.getStatus());
+		} else {
+			this.ticketCounterService.move(null, ticketPersisted.getStatus());
+		}
+		this.ticketCache.invalidate(ticketPersisted.getId());
+		return ticketPersisted;
 	}
 
 	@Override
 	public Optional<Ticket> findById(String id) {
-		return this.ticketRepository.findById(id);
+		return this.ticketCache.get(id, key -> {
+			Ticket ticket = this.ticketRepository.findById(key).orElse(null);
+			if (ticket != null) {
+				this.userReferenceResolver.resolve(Collections.singletonList(ticket));
+			}
+			return ticket;
+		});
+	}
+
+	@Override
+	public Attachment findAttachment(String id) {
+		Ticket ticket = this.ticketRepository.findStateById(id);
+		return ticket != null ? ticket.getAttachment() : null;
 	}
 
 	public void delete(String id) {
-		this.ticketRepository.deleteById(id);
+		Ticket ticket = this.ticketRepository.deleteAndGetState(id);
+		if (ticket != null) {
+			this.ticketCache.invalidate(id);
+			this.attachmentService.delete(ticket.getAttachment());
+			this.ticketCounterService.move(ticket.getStatus(), null);
+		}
 	}
 
-	public Page<Ticket> listTicket(int page, int count) {
-		Pageable pages = PageRequest.of(page, count);
-		return this.ticketRepository.findAll(pages);
+	public CursorPage<Ticket> findByCursor(TicketFilter filter, String cursor, int count) {
+		CursorPage<Ticket> tickets = this.ticketRepository.findByCursor(filter, cursor, count);
+		this.userReferenceResolver.resolve(tickets.getContent());
+		return tickets;
 	}
 	
-	public Iterable<Ticket> findAll() {
-		return this.ticketRepository.findAll();
+	public Slice<Ticket> findSlice(TicketFilter filter, int page, int count) {
+		return resolveUsers(this.ticketRepository.findSliceByFilter(filter, page, count));
 	}
 	
-	public Page<Ticket> findByCurrentUser(int page, int count, String userId) {
-		Pageable pages =  PageRequest.of(page, count, null);
-		return this.ticketRepository.findByUserIdOrderByDateDesc(pages,userId);
+	public long approximateCount(TicketFilter filter) {
+		return this.approximateCounts.get(filter);
 	}
-
-	public ChangeStatus createChangeStatus(ChangeStatus changeStatus) {
-		return this.changeStatusRepository.save(changeStatus);
+	
+	public Integer generateNumber() {
+		return (int) this.sequenceService.next(SequenceService.TICKET_NUMBER);
+	}
+	
+	public void initNumberSequence() {
+		Integer maxNumber = this.ticketRepository.findMaxNumber();
+		if (maxNumber != null) {
+			this.sequenceService.ensureAtLeast(SequenceService.TICKET_NUMBER, maxNumber);
+		}
+		for (String id : this.ticketRepository.findDuplicateNumberIds()) {
+			this.ticketRepository.updateNumber(id, generateNumber());
+		}
+	}
+	
+	public Summary findSummary(String userId, String assignedUserId, Date from, Date to) {
+		if (userId == null && assignedUserId == null && from == null && to == null) {
+			return this.ticketCounterService.read();
+		}
+		return this.ticketRepository.summarize(userId, assignedUserId, from, to);
+	}
+	
+	public Ticket patch(String id, Map<String, Object> patch, Long expectedVersion) {
+		Long version = expectedVersion != null ? expectedVersion : TicketMergePatch.version(patch);
+		Update update = TicketMergePatch.toUpdate(patch);
+		Ticket previous = this.ticketRepository.findStateById(id);
+		if (previous == null) {
+			throw new NoSuchElementException("Register not found id: " + id);
+		}
+		Attachment attachment = null;
+		if (patch.containsKey(TicketMergePatch.IMAGE)) {
+			String image = (String) patch.get(TicketMergePatch.IMAGE);
+			if (image != null && !image.isEmpty()) {
+				attachment = this.attachmentService.store(image, "ticket-" + id);
+				update.set("attachment", attachment);
+			} else {
+				update.unset("attachment");
+			}
+		}
+		Ticket ticket = this.ticketRepository.patch(id, update, version);
+		if (ticket == null) {
+			this.attachmentService.delete(attachment);
+			if (this.ticketRepository.findStateById(id) == null) {
+				throw new NoSuchElementException("Register not found id: " + id);
+			}
+			throw new OptimisticLockingFailureException("Ticket " + id + " was modified, version " + version + " is stale");
+		}
+		this.ticketCache.invalidate(id);
+		this.ticketCounterService.touch();
+		if (patch.containsKey(TicketMergePatch.IMAGE) && previous.getAttachment() != null) {
+			this.attachmentService.delete(previous.getAttachment());
+		}
+		this.userReferenceResolver.resolve(Collections.singletonList(ticket));
+		return ticket;
+	}
+	
+	public List<TicketImportResult> importTickets(List<Ticket> tickets, User user) {
+		List<TicketImportResult> results = new ArrayList<TicketImportResult>(tickets.size());
+		if (tickets.isEmpty()) {
+			return results;
+		}
+		long number = this.sequenceService.nextBlock(SequenceService.TICKET_NUMBER, tickets.size());
+		Date date = new Date();
+		for (Ticket ticket : tickets) {
+			ticket.setId(new ObjectId().toHexString());
+			ticket.setVersion(0L);
+			ticket.setStatus(StatusEnum.New);
+			ticket.setUser(user);
+			ticket.setDate(date);
+			ticket.setNumber((int) number++);
+			ticket.setAssignedUser(null);
+			if (ticket.getImage() != null && !ticket.getImage().isEmpty()) {
+				ticket.setAttachment(this.attachmentService.store(ticket.getImage(), "ticket-" + ticket.getNumber()));
+			} else {
+				ticket.setAttachment(null);
+			}
+			ticket.setImage(null);
+		}
+		Map<Integer, String> errors = this.ticketRepository.insertUnordered(tickets);
+		for (int i = 0; i < tickets.size(); i++) {
+			Ticket ticket = tickets.get(i);
+			if (errors.containsKey(i)) {
+				this.attachmentService.delete(ticket.getAttachment());
+				results.add(TicketImportResult.failed(errors.get(i)));
+			} else {
+				results.add(TicketImportResult.created(ticket));
+			}
+		}
+		this.ticketCounterService.move(null, StatusEnum.New, tickets.size() - errors.size());
+		return results;
+	}
+	
+	public long changeCount() {
+		return this.ticketCounterService.changes();
 	}
 	
-	public Iterable<ChangeStatus> listChangeStatus(String ticketId) {
-		return this.changeStatusRepository.findByTicketIdOrderByDateChangeStatusDesc(ticketId);
+	public long countChangeStatus(String ticketId) {
+		return this.changeStatusRepository.countHistoryByTicketId(ticketId);
 	}
 	
-	public Page<Ticket> findByParameters(int page, int count,String title,String status,String priority) {
-		Pageable pages =   PageRequest.of(page, count);
-		return this.ticketRepository.
-				findByTitleIgnoreCaseContainingAndStatusIgnoreCaseContainingAndPriorityIgnoreCaseContainingOrderByDateDesc(
-				title,status,priority,pages);
+	public CacheStatistics cacheStatistics() {
+		return this.ticketCache.stats();
 	}
 	
-	public Page<Ticket> findByParametersAndCurrentUser(int page, int count,String title,String status,
-			String priority,String userId) {
-		Pageable pages = PageRequest.of(page, count);
-		return this.ticketRepository.
-				findByTitleIgnoreCaseContainingAndStatusIgnoreCaseContainingAndPriorityIgnoreCaseContainingAndUserIdOrderByDateDesc(
-				title,status,priority,userId,pages);
+	public void initVersions() {
+		this.ticketRepository.initVersions();
+	}
+
+	public Ticket changeStatus(String id, StatusEnum status, User userChange) {
+		User assignedUser = status == StatusEnum.Assigned ? userChange : null;
+		Ticket ticket = this.ticketRepository.changeStatus(id, status, assignedUser);
+		if (ticket == null) {
+			Ticket current = this.ticketRepository.findStateById(id);
+			if (current == null) {
+				throw new NoSuchElementException("Register not found id: " + id);
+			}
+			throw new StatusTransitionException("Ticket status is " + current.getStatus() + ", it cannot change to " + status);
+		}
+		this.ticketCache.invalidate(id);
+		this.ticketCounterService.move(ticket.getStatus(), status);
+		ticket.setStatus(status);
+		ticket.setVersion(TicketRepositoryImpl.nextVersion(ticket.getVersion()));
+		if (assignedUser != null) {
+			ticket.setAssignedUser(assignedUser);
+		}
+		this.userReferenceResolver.resolve(Collections.singletonList(ticket));
+		
+		ChangeStatus changeStatus = new ChangeStatus();
+		changeStatus.setUserChange(userChange);
+		changeStatus.setDateChangeStatus(new Date());
+		changeStatus.setStatus(status);
+		changeStatus.setTicket(ticket);
+		this.changeStatusWriter.write(changeStatus);
+		return ticket;
+	}
+
+	public List<TicketStatusResult> changeStatus(Collection<String> ids, StatusEnum status, String assignedUserId, User userChange) {
+		User assignedUser = null;
+		if (assignedUserId != null) {
+			if (status != StatusEnum.Assigned) {
+				throw new IllegalArgumentException("Assignee is only allowed when status is " + StatusEnum.Assigned);
+			}
+			assignedUser = this.userRepository.findById(assignedUserId)
+					.orElseThrow(() -> new IllegalArgumentException("User not found id: " + assignedUserId));
+		} else if (status == StatusEnum.Assigned) {
+			assignedUser = userChange;
+		}
+		
+		// one bulk write and one read-back, which reports the status each moved ticket left
+		Map<String, TicketStatusMove> moves = this.ticketRepository.changeStatus(ids, status, assignedUser);
+		Map<StatusEnum, Long> moved = new EnumMap<StatusEnum, Long>(StatusEnum.class);
+		List<String> changed = new ArrayList<String>();
+		List<ChangeStatus> history = new ArrayList<ChangeStatus>();
+		List<TicketStatusResult> results = new ArrayList<TicketStatusResult>(ids.size());
+		Date date = new Date();
+		for (String id : ids) {
+			TicketStatusMove move = moves.get(id);
+			if (move == null) {
+				results.add(new TicketStatusResult(id, null, "Register not found id: " + id));
+			} else if (!move.isMoved()) {
+				results.add(new TicketStatusResult(id, move.getStatus(), "Ticket status is " + move.getStatus() + ", it cannot change to " + status));
+			} else {
+				results.add(new TicketStatusResult(id, status, null));
+				moved.merge(move.getFrom(), 1L, Long::sum);
+				changed.add(id);
+				Ticket ticket = new Ticket();
+				ticket.setId(id);
+				ChangeStatus changeStatus = new ChangeStatus();
+				changeStatus.setUserChange(userChange);
+				changeStatus.setDateChangeStatus(date);
+				changeStatus.setStatus(status);
+				changeStatus.setTicket(ticket);
+				history.add(changeStatus);
+			}
+		}
+		this.ticketCache.invalidate(changed);
+		for (Map.Entry<StatusEnum, Long> move : moved.entrySet()) {
+			this.ticketCounterService.move(move.getKey(), status, move.getValue());
+		}
+		if (!history.isEmpty()) {
+			this.changeStatusWriter.writeAll(history);
+		}
+		return results;
+	}
+
+	public List<ChangeStatus> listChangeStatus(String ticketId) {
+		return this.changeStatusRepository.findHistoryByTicketId(ticketId);
 	}
 	
-	public Page<Ticket> findByNumber(int page, int count,Integer number){
-		Pageable pages = PageRequest.of(page, count);
-		return this.ticketRepository.findByNumber(number, pages);
+	public Page<Ticket> findByFilter(TicketFilter filter, int page, int count) {
+		return resolveUsers(this.ticketRepository.findPageByFilter(filter, page, count));
 	}
 	
-	public Page<Ticket> findByParametersAndAssignedUser(int page, int count,String title,String status,
-			String priority,String assignedUserId) {
-		Pageable pages = PageRequest.of(page, count);
-		return this.ticketRepository.
-				findByTitleIgnoreCaseContainingAndStatusIgnoreCaseContainingAndPriorityIgnoreCaseContainingAndAssignedUserIdOrderByDateDesc(
-				title,status,priority,assignedUserId,pages);
+	private <S extends Slice<Ticket>> S resolveUsers(S tickets) {
+		this.userReferenceResolver.resolve(tickets.getContent());
+		return tickets;
 	}
+
 }
 	
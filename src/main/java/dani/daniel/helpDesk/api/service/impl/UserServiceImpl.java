@@ -9,7 +9,9 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Component;
 
 import dani.daniel.helpDesk.api.User;
+import dani.daniel.helpDesk.api.dto.CacheStatistics;
 import dani.daniel.helpDesk.api.repository.UserRepository;
+import dani.daniel.helpDesk.api.security.service.UserDetailsCache;
 import dani.daniel.helpDesk.api.service.UserService;
 
 @Component
@@ -17,6 +19,9 @@ public class UserServiceImpl implements UserService {
 	
 	@Autowired
 	UserRepository userRepository;
+	
+	@Autowired
+	UserDetailsCache userDetailsCache;
 
 	@Override
 	public User findByEmail(String email) {
@@ -25,7 +30,9 @@ public class UserServiceImpl implements UserService {
 
 	@Override
 	public User createOrUpdadte(User user) {
-		return this.userRepository.save(user);
+		User userPersisted = this.userRepository.save(user);
+		this.userDetailsCache.invalidate(userPersisted.getId(), userPersisted.getEmail());
+		return userPersisted;
 	}
 
 	@Override
@@ -36,6 +43,7 @@ public class UserServiceImpl implements UserService {
 	@Override
 	public void delete(String id) {
 		this.userRepository.deleteById(id);
+		this.userDetailsCache.invalidate(id, null);
 		
 	}
 
@@ -45,4 +53,9 @@ public class UserServiceImpl implements UserService {
 		return this.userRepository.findAll(pages);
 	}
 
+	@Override
+	public CacheStatistics cacheStatistics() {
+		return this.userDetailsCache.stats();
+	}
+
 }
@@ -0,0 +1,37 @@
+package dani.daniel.helpDesk.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class TicketTests {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@Test
+	void clientsCannotPointATicketAtAnotherAttachment() throws Exception {
+		Ticket ticket = objectMapper.readValue(
+				"{\"title\": \"Printer\", \"attachment\": {\"id\": \"5f8d0d55b54764421b7156c9\"}}", Ticket.class);
+
+		assertEquals("Printer", ticket.getTitle());
+		assertNull(ticket.getAttachment());
+	}
+
+	@Test
+	void attachmentIsWrittenButNotTheInlineImage() throws Exception {
+		Attachment attachment = new Attachment();
+		attachment.setId("5f8d0d55b54764421b7156c9");
+		Ticket ticket = new Ticket();
+		ticket.setAttachment(attachment);
+
+		String json = objectMapper.writeValueAsString(ticket);
+
+		assertEquals("5f8d0d55b54764421b7156c9", objectMapper.readTree(json).path("attachment").path("id").asText());
+		assertFalse(objectMapper.readTree(json).has("image"));
+	}
+
+}
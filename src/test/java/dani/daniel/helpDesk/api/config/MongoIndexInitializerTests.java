@@ -0,0 +1,96 @@
+package dani.daniel.helpDesk.api.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import dani.daniel.helpDesk.api.ChangeStatus;
+import dani.daniel.helpDesk.api.Ticket;
+import dani.daniel.helpDesk.api.User;
+
+class MongoIndexInitializerTests {
+
+	private MongoMappingContext mappingContext;
+
+	@BeforeEach
+	void setUp() {
+		mappingContext = new MongoMappingContext();
+	}
+
+	@Test
+	void ticketListingsHaveAnIndexPerFilterEndingInTheKeysetSort() {
+		List<Document> keys = indexKeys(Ticket.class);
+
+		assertTrue(keys.contains(new Document("date", -1).append("_id", -1)));
+		assertTrue(keys.contains(new Document("user.$id", 1).append("date", -1).append("_id", -1)));
+		assertTrue(keys.contains(new Document("assignedUser.$id", 1).append("date", -1).append("_id", -1)));
+		assertTrue(keys.contains(new Document("status", 1).append("priority", 1).append("date", -1)));
+		assertTrue(keys.contains(new Document("number", 1)));
+	}
+
+	@Test
+	void titleAndDescriptionShareOneWeightedTextIndex() {
+		List<IndexDefinition> text = new ArrayList<IndexDefinition>();
+		for (IndexDefinition index : new MongoPersistentEntityIndexResolver(mappingContext).resolveIndexFor(Ticket.class)) {
+			if (index.getIndexKeys().containsValue("text")) {
+				text.add(index);
+			}
+		}
+
+		assertEquals(1, text.size());
+		assertEquals(new Document("title", "text").append("description", "text"), text.get(0).getIndexKeys());
+		assertEquals(3, ((Number) text.get(0).getIndexOptions().get("weights", Document.class).get("title")).intValue());
+	}
+
+	@Test
+	void historyAndLoginLookupsAreIndexed() {
+		assertTrue(indexKeys(ChangeStatus.class).contains(new Document("ticket.$id", 1).append("dateChangeStatus", -1)));
+		assertTrue(indexKeys(User.class).contains(new Document("email", 1)));
+	}
+
+	@Test
+	void oneFailingIndexDoesNotStopTheOthers() {
+		MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+		IndexOperations indexOperations = mock(IndexOperations.class);
+		when(mongoTemplate.indexOps(any(Class.class))).thenReturn(indexOperations);
+		doThrow(new IllegalStateException("index build failed")).doReturn("index")
+				.when(indexOperations).ensureIndex(any(IndexDefinition.class));
+		MongoIndexInitializer initializer = new MongoIndexInitializer();
+		ReflectionTestUtils.setField(initializer, "mongoTemplate", mongoTemplate);
+		ReflectionTestUtils.setField(initializer, "mappingContext", mappingContext);
+		ReflectionTestUtils.setField(initializer, "explainCheck", false);
+
+		initializer.initIndexes();
+
+		int declared = indexKeys(User.class).size() + indexKeys(Ticket.class).size() + indexKeys(ChangeStatus.class).size();
+		verify(indexOperations, times(declared)).ensureIndex(any(IndexDefinition.class));
+	}
+
+	private List<Document> indexKeys(Class<?> type) {
+		List<Document> keys = new ArrayList<Document>();
+		for (IndexDefinition index : new MongoPersistentEntityIndexResolver(mappingContext).resolveIndexFor(type)) {
+			keys.add(index.getIndexKeys());
+		}
+		assertEquals(keys.size(), keys.stream().distinct().count());
+		return keys;
+	}
+
+}
@@ -0,0 +1,127 @@
+package dani.daniel.helpDesk.api.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.coyote.ProtocolHandler;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.core.task.AsyncTaskExecutor;
+
+class VirtualThreadConfigTests {
+
+	private static final String ENABLED = VirtualThreadConfig.ENABLED + "=true";
+
+	private final WebApplicationContextRunner contextRunner = new WebApplicationContextRunner()
+			.withUserConfiguration(VirtualThreadConfig.class);
+
+	@Test
+	void platformPoolsAreKeptByDefault() {
+		contextRunner.run(context -> {
+			assertTrue(context.getBeansOfType(TomcatProtocolHandlerCustomizer.class).isEmpty());
+			assertTrue(context.getBeansOfType(AsyncTaskExecutor.class).isEmpty());
+		});
+		contextRunner.withPropertyValues(VirtualThreadConfig.ENABLED + "=false").run(context ->
+				assertTrue(context.getBeansOfType(AsyncTaskExecutor.class).isEmpty()));
+	}
+
+	@Test
+	void enabledModeNeedsARuntimeWithVirtualThreads() {
+		contextRunner.withPropertyValues(ENABLED).run(context -> {
+			assertEquals(virtualThreadsAvailable(), context.containsBean("virtualThreadProtocolHandlerCustomizer"));
+			assertEquals(virtualThreadsAvailable(), context.containsBean("applicationTaskExecutor"));
+			assertEquals(virtualThreadsAvailable(), context.containsBean("taskExecutor"));
+		});
+	}
+
+	@Test
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	void enabledModeHandsTomcatAndAsyncTasksTheSameThreadPerTaskExecutor() throws Exception {
+		ExecutorService executor = Executors.newCachedThreadPool(task -> new Thread(task, "per-task"));
+		VirtualThreadConfig config = new VirtualThreadConfig(executor);
+		ProtocolHandler protocolHandler = mock(ProtocolHandler.class);
+
+		((TomcatProtocolHandlerCustomizer) config.virtualThreadProtocolHandlerCustomizer()).customize(protocolHandler);
+		Future<String> thread = config.virtualThreadTaskExecutor().submit(() -> Thread.currentThread().getName());
+
+		verify(protocolHandler).setExecutor(executor);
+		assertEquals("per-task", thread.get());
+		config.shutdown();
+		assertTrue(executor.isShutdown());
+	}
+
+	@Test
+	void asyncTasksRunOnVirtualThreadsWhenEnabled() throws Exception {
+		assumeTrue(virtualThreadsAvailable());
+		contextRunner.withPropertyValues(ENABLED).run(context -> {
+			AsyncTaskExecutor executor = context.getBean("applicationTaskExecutor", AsyncTaskExecutor.class);
+			CompletableFuture<Boolean> virtual = new CompletableFuture<Boolean>();
+			executor.execute(() -> virtual.complete(isVirtual(Thread.currentThread())));
+			assertTrue(virtual.get());
+		});
+	}
+
+	/**
+	 * 2000 calls blocking 200 ms each need at least two seconds on a
+	 * 200-thread pool; on virtual threads they all wait at once.
+	 */
+	@Test
+	void blockingCallsBeyondThePoolSizeRunAtFlatLatency() throws Exception {
+		assumeTrue(virtualThreadsAvailable());
+		contextRunner.withPropertyValues(ENABLED).run(context -> {
+			AsyncTaskExecutor executor = context.getBean("applicationTaskExecutor", AsyncTaskExecutor.class);
+			long start = System.nanoTime();
+			List<Future<?>> calls = new ArrayList<Future<?>>();
+			for (int i = 0; i < 2000; i++) {
+				calls.add(executor.submit(() -> {
+					Thread.sleep(200);
+					return null;
+				}));
+			}
+			for (Future<?> call : calls) {
+				call.get();
+			}
+			assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1500);
+		});
+	}
+
+	@Test
+	void reactiveApplicationsAreLeftAlone() {
+		new ApplicationContextRunner()
+				.withUserConfiguration(VirtualThreadConfig.class)
+				.withPropertyValues(ENABLED)
+				.run(context -> assertFalse(context.containsBean("applicationTaskExecutor")));
+	}
+
+	private static boolean virtualThreadsAvailable() {
+		try {
+			Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return true;
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
+	}
+
+	private static boolean isVirtual(Thread thread) {
+		try {
+			return (Boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+		} catch (ReflectiveOperationException e) {
+			return false;
+		}
+	}
+
+}
@@ -0,0 +1,82 @@
+package dani.daniel.helpDesk.api.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import java.lang.reflect.Method;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.reactive.context.AnnotationConfigReactiveWebApplicationContext;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.reactive.config.EnableWebFlux;
+
+import dani.daniel.helpDesk.api.service.ReactiveTicketService;
+
+class ReactiveTicketControllerTests {
+
+	private ReactiveTicketService ticketService;
+	private WebTestClient client;
+
+	@BeforeEach
+	void setUp() {
+		ticketService = mock(ReactiveTicketService.class);
+		AnnotationConfigReactiveWebApplicationContext context = new AnnotationConfigReactiveWebApplicationContext();
+		context.registerBean(ReactiveTicketService.class, () -> ticketService);
+		context.register(WebFluxTestConfig.class, ReactiveTicketController.class);
+		context.refresh();
+		client = WebTestClient.bindToApplicationContext(context).build();
+	}
+
+	@Test
+	void everyServletRouteHasAReactiveHandler() {
+		assertEquals(routes(TicketController.class), routes(ReactiveTicketController.class));
+	}
+
+	@Test
+	void routesThatAreNotPortedAnswerNotImplemented() {
+		client.get().uri("/api/ticket/export").exchange()
+				.expectStatus().isEqualTo(HttpStatus.NOT_IMPLEMENTED)
+				.expectBody().jsonPath("$.errors[0]")
+				.isEqualTo("GET /api/ticket/export is not available with the reactive profile");
+		client.get().uri("/api/ticket/cursor/20").exchange()
+				.expectStatus().isEqualTo(HttpStatus.NOT_IMPLEMENTED);
+		client.get().uri("/api/ticket/1/attachment").exchange()
+				.expectStatus().isEqualTo(HttpStatus.NOT_IMPLEMENTED);
+		client.patch().uri("/api/ticket/1").exchange()
+				.expectStatus().isEqualTo(HttpStatus.NOT_IMPLEMENTED);
+		client.put().uri("/api/ticket/status").exchange()
+				.expectStatus().isEqualTo(HttpStatus.NOT_IMPLEMENTED);
+
+		verifyNoInteractions(ticketService);
+	}
+
+	@EnableWebFlux
+	static class WebFluxTestConfig {
+	}
+
+	private static Set<String> routes(Class<?> controller) {
+		Set<String> routes = new TreeSet<>();
+		for (Method method : controller.getDeclaredMethods()) {
+			RequestMapping mapping = AnnotatedElementUtils.findMergedAnnotation(method, RequestMapping.class);
+			if (mapping == null) {
+				continue;
+			}
+			String[] paths = mapping.path().length == 0 ? new String[] { "" } : mapping.path();
+			for (RequestMethod requestMethod : mapping.method()) {
+				for (String path : paths) {
+					routes.add(requestMethod + " " + (path.startsWith("/") ? path.substring(1) : path));
+				}
+			}
+		}
+		return routes;
+	}
+
+}
@@ -0,0 +1,307 @@
+package dani.daniel.helpDesk.api.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultMatcher;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.validation.BindingResult;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import dani.daniel.helpDesk.api.Ticket;
+import dani.daniel.helpDesk.api.User;
+import dani.daniel.helpDesk.api.dto.Summary;
+import dani.daniel.helpDesk.api.dto.TicketFilter;
+import dani.daniel.helpDesk.api.dto.TicketImportResult;
+import dani.daniel.helpDesk.api.dto.TicketStatusChange;
+import dani.daniel.helpDesk.api.enums.ExportFormatEnum;
+import dani.daniel.helpDesk.api.security.jwt.AuthenticatedUserArgumentResolver;
+import dani.daniel.helpDesk.api.security.jwt.JwtUser;
+import dani.daniel.helpDesk.api.security.model.AuthenticatedUser;
+import dani.daniel.helpDesk.api.service.TicketExportService;
+import dani.daniel.helpDesk.api.service.TicketService;
+
+class TicketControllerTests {
+
+	private TicketService ticketService;
+	private TicketController controller;
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void setUp() {
+		ticketService = mock(TicketService.class);
+		controller = new TicketController();
+		ReflectionTestUtils.setField(controller, "ticketService", ticketService);
+		ReflectionTestUtils.setField(controller, "objectMapper", new ObjectMapper());
+		ReflectionTestUtils.setField(controller, "importChunkSize", 1000);
+		mockMvc = MockMvcBuilders.standaloneSetup(controller)
+				.setCustomArgumentResolvers(new AuthenticatedUserArgumentResolver())
+				.build();
+		JwtUser user = new JwtUser("c1", "customer@helpdesk.com", "secret",
+				Collections.singletonList(new SimpleGrantedAuthority("ROLE_CUSTOMER")));
+		SecurityContextHolder.getContext().setAuthentication(
+				new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+	}
+
+	@AfterEach
+	void tearDown() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void importReportsParseAndValidationErrorsByLine() throws Exception {
+		when(ticketService.importTickets(anyList(), any(User.class))).thenAnswer(invocation -> {
+			List<Ticket> tickets = invocation.getArgument(0);
+			List<TicketImportResult> results = new ArrayList<TicketImportResult>();
+			for (Ticket ticket : tickets) {
+				ticket.setNumber(results.size() + 1);
+				results.add(TicketImportResult.created(ticket));
+			}
+			return results;
+		});
+
+		mockMvc.perform(post("/api/ticket/import")
+				.contentType(TicketController.NDJSON_VALUE)
+				.content("{\"title\": \"Printer\"}\n{not json\n\n{\"description\": \"no title\"}\n{\"title\": \"Mouse\"}\n"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.data.length()").value(4))
+				.andExpect(jsonPath("$.data[0].line").value(2))
+				.andExpect(jsonPath("$.data[0].error").exists())
+				.andExpect(jsonPath("$.data[1].line").value(4))
+				.andExpect(jsonPath("$.data[1].error").value("Title no information"))
+				.andExpect(jsonPath("$.data[2].line").value(1))
+				.andExpect(jsonPath("$.data[2].number").value(1))
+				.andExpect(jsonPath("$.data[3].line").value(5))
+				.andExpect(jsonPath("$.data[3].number").value(2));
+	}
+
+	@Test
+	void importIsWrittenInChunks() throws Exception {
+		ReflectionTestUtils.setField(controller, "importChunkSize", 2);
+		when(ticketService.importTickets(anyList(), any(User.class))).thenAnswer(invocation -> {
+			List<TicketImportResult> results = new ArrayList<TicketImportResult>();
+			for (Object ticket : (List<?>) invocation.getArgument(0)) {
+				results.add(TicketImportResult.created((Ticket) ticket));
+			}
+			return results;
+		});
+
+		mockMvc.perform(post("/api/ticket/import")
+				.contentType(TicketController.NDJSON_VALUE)
+				.content("{\"title\": \"a\"}\n{\"title\": \"b\"}\n{\"title\": \"c\"}\n"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.data.length()").value(3));
+
+		verify(ticketService, times(2)).importTickets(anyList(), any(User.class));
+	}
+
+	@Test
+	void patchAnswersTheNewVersionAsETag() throws Exception {
+		Ticket ticket = new Ticket();
+		ticket.setId("1");
+		ticket.setVersion(5L);
+		when(ticketService.patch(eq("1"), anyMap(), eq(4L))).thenReturn(ticket);
+
+		mockMvc.perform(patch("/api/ticket/1")
+				.contentType(TicketController.MERGE_PATCH_JSON_VALUE)
+				.header(HttpHeaders.IF_MATCH, "\"4-2\"")
+				.content("{\"title\": \"Printer\"}"))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, "\"5\""))
+				.andExpect(jsonPath("$.data.version").value(5));
+	}
+
+	@Test
+	void stalePatchIsAPreconditionFailure() throws Exception {
+		when(ticketService.patch(eq("1"), anyMap(), eq(4L))).thenThrow(new OptimisticLockingFailureException("version 4 is stale"));
+
+		mockMvc.perform(patch("/api/ticket/1")
+				.contentType(TicketController.MERGE_PATCH_JSON_VALUE)
+				.header(HttpHeaders.IF_MATCH, "W/\"4\"")
+				.content("{\"title\": \"Printer\"}"))
+				.andExpect(status().isPreconditionFailed())
+				.andExpect(jsonPath("$.errors[0]").value("version 4 is stale"));
+	}
+
+	@Test
+	void malformedIfMatchIsABadRequest() throws Exception {
+		mockMvc.perform(patch("/api/ticket/1")
+				.contentType(TicketController.MERGE_PATCH_JSON_VALUE)
+				.header(HttpHeaders.IF_MATCH, "\"abc\"")
+				.content("{\"title\": \"Printer\"}"))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void unchangedTicketIsNotModifiedWithoutLoadingItsHistory() throws Exception {
+		Ticket ticket = new Ticket();
+		ticket.setId("1");
+		ticket.setVersion(3L);
+		when(ticketService.findById("1")).thenReturn(Optional.of(ticket));
+		when(ticketService.countChangeStatus("1")).thenReturn(2L);
+
+		mockMvc.perform(get("/api/ticket/1").header(HttpHeaders.IF_NONE_MATCH, "\"3-2\""))
+				.andExpect(status().isNotModified())
+				.andExpect(header().string(HttpHeaders.ETAG, "\"3-2\""))
+				.andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+				.andExpect(varyByAuthorization());
+
+		verify(ticketService, never()).listChangeStatus(anyString());
+	}
+
+	@Test
+	void historyWrittenBehindTheVersionChangesTheTicketTag() throws Exception {
+		Ticket ticket = new Ticket();
+		ticket.setId("1");
+		ticket.setVersion(3L);
+		when(ticketService.findById("1")).thenReturn(Optional.of(ticket));
+		when(ticketService.countChangeStatus("1")).thenReturn(3L);
+
+		mockMvc.perform(get("/api/ticket/1").header(HttpHeaders.IF_NONE_MATCH, "\"3-2\""))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, "\"3-3\""))
+				.andExpect(jsonPath("$.data.id").value("1"));
+
+		verify(ticketService).listChangeStatus("1");
+	}
+
+	@Test
+	void listTagIsScopedToTheCaller() throws Exception {
+		when(ticketService.changeCount()).thenReturn(7L);
+		when(ticketService.findByFilter(any(TicketFilter.class), eq(0), eq(10)))
+				.thenReturn(new PageImpl<Ticket>(Collections.<Ticket>emptyList()));
+
+		mockMvc.perform(get("/api/ticket/0/10"))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, "\"list-7-c1-ROLE_CUSTOMER\""));
+		mockMvc.perform(get("/api/ticket/0/10").header(HttpHeaders.IF_NONE_MATCH, "\"list-7-c1-ROLE_CUSTOMER\""))
+				.andExpect(status().isNotModified());
+		mockMvc.perform(get("/api/ticket/0/10").header(HttpHeaders.IF_NONE_MATCH, "\"list-7-t1-ROLE_TECHNICIAN\""))
+				.andExpect(status().isOk());
+
+		verify(ticketService, times(2)).findByFilter(any(TicketFilter.class), eq(0), eq(10));
+	}
+
+	@Test
+	void summaryIsNotModifiedUntilATicketChanges() throws Exception {
+		when(ticketService.changeCount()).thenReturn(7L);
+
+		mockMvc.perform(get("/api/ticket/summary").header(HttpHeaders.IF_NONE_MATCH, "\"summary-7-c1-ROLE_CUSTOMER\""))
+				.andExpect(status().isNotModified())
+				.andExpect(varyByAuthorization());
+		verify(ticketService, never()).findSummary(any(), any(), any(), any());
+
+		when(ticketService.changeCount()).thenReturn(8L);
+		when(ticketService.findSummary("c1", null, null, null)).thenReturn(new Summary());
+
+		mockMvc.perform(get("/api/ticket/summary").header(HttpHeaders.IF_NONE_MATCH, "\"summary-7-c1-ROLE_CUSTOMER\""))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, "\"summary-8-c1-ROLE_CUSTOMER\""));
+	}
+	@Test
+	void bulkStatusChangeIsForTechniciansOnly() throws Exception {
+		PreAuthorize preAuthorize = TicketController.class.getMethod("changeStatus",
+				AuthenticatedUser.class, TicketStatusChange.class, BindingResult.class).getAnnotation(PreAuthorize.class);
+
+		assertEquals("hasAnyRole('TECHNICIAN')", preAuthorize.value());
+	}
+
+	@Test
+	void exportStreamsTheBodyAndReleasesItsSlotOnceWritten() throws Exception {
+		TicketExportService ticketExportService = exportService(true);
+		when(ticketExportService.export(any(TicketFilter.class), eq(ExportFormatEnum.csv), any(OutputStream.class))).thenAnswer(invocation -> {
+			OutputStream out = invocation.getArgument(2);
+			out.write("id,title\r\n".getBytes(StandardCharsets.UTF_8));
+			return 0L;
+		});
+
+		MvcResult result = mockMvc.perform(get("/api/ticket/export").param("format", "csv"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		mockMvc.perform(asyncDispatch(result))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"tickets.csv\""))
+				.andExpect(content().string("id,title\r\n"));
+
+		verify(ticketExportService).release();
+	}
+
+	@Test
+	void customerExportByNumberStaysScopedToTheirTickets() throws Exception {
+		TicketExportService ticketExportService = exportService(true);
+
+		MvcResult result = mockMvc.perform(get("/api/ticket/export").param("number", "42")).andReturn();
+		mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+
+		ArgumentCaptor<TicketFilter> filter = ArgumentCaptor.forClass(TicketFilter.class);
+		verify(ticketExportService).export(filter.capture(), eq(ExportFormatEnum.ndjson), any(OutputStream.class));
+		assertEquals(42, filter.getValue().getNumber().intValue());
+		assertEquals("c1", filter.getValue().getUserId());
+	}
+
+	@Test
+	void exportBeyondTheConcurrencyLimitIsRejected() throws Exception {
+		TicketExportService ticketExportService = exportService(false);
+
+		MvcResult result = mockMvc.perform(get("/api/ticket/export")).andReturn();
+		mockMvc.perform(asyncDispatch(result))
+				.andExpect(status().isTooManyRequests())
+				.andExpect(jsonPath("$.errors[0]").value("Too many exports running, try again later"));
+
+		verify(ticketExportService, never()).export(any(TicketFilter.class), any(ExportFormatEnum.class), any(OutputStream.class));
+		verify(ticketExportService, never()).release();
+	}
+
+	private TicketExportService exportService(boolean available) {
+		TicketExportService ticketExportService = mock(TicketExportService.class);
+		when(ticketExportService.tryAcquire()).thenReturn(available);
+		ReflectionTestUtils.setField(controller, "ticketExportService", ticketExportService);
+		return ticketExportService;
+	}
+
+	private static ResultMatcher varyByAuthorization() {
+		return result -> assertTrue(result.getResponse().getHeaders(HttpHeaders.VARY).contains(HttpHeaders.AUTHORIZATION));
+	}
+
+}
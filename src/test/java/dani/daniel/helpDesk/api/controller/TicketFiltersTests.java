@@ -0,0 +1,86 @@
+package dani.daniel.helpDesk.api.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import dani.daniel.helpDesk.api.dto.TicketFilter;
+import dani.daniel.helpDesk.api.enums.ProfileEnum;
+import dani.daniel.helpDesk.api.enums.StatusEnum;
+import dani.daniel.helpDesk.api.security.model.AuthenticatedUser;
+
+class TicketFiltersTests {
+
+	private static final AuthenticatedUser CUSTOMER = new AuthenticatedUser("c1", "customer@helpdesk.com", ProfileEnum.ROLE_CUSTOMER);
+	private static final AuthenticatedUser TECHNICIAN = new AuthenticatedUser("t1", "technician@helpdesk.com", ProfileEnum.ROLE_TECHNICIAN);
+
+	@Test
+	void customersOnlySummarizeTheirOwnTickets() {
+		assertEquals("c1", TicketFilters.summaryUserId(CUSTOMER, null));
+		assertEquals("c1", TicketFilters.summaryUserId(CUSTOMER, "someone-else"));
+	}
+
+	@Test
+	void techniciansSummarizeTheUserTheyAskFor() {
+		assertNull(TicketFilters.summaryUserId(TECHNICIAN, null));
+		assertEquals("c1", TicketFilters.summaryUserId(TECHNICIAN, "c1"));
+	}
+
+	@Test
+	void customerListsAndSearchesAreScopedToTheirTickets() {
+		assertEquals("c1", TicketFilters.listFilter(CUSTOMER, null).getUserId());
+		assertEquals("c1", search(CUSTOMER, 0, "uninformed", "uninformed", true).getUserId());
+		assertNull(TicketFilters.listFilter(TECHNICIAN, null).getUserId());
+	}
+
+	@Test
+	void techniciansSearchTheirAssignedTicketsOnlyWhenAsked() {
+		assertEquals("t1", search(TECHNICIAN, 0, "uninformed", "uninformed", true).getAssignedUserId());
+		assertNull(search(TECHNICIAN, 0, "uninformed", "uninformed", false).getAssignedUserId());
+	}
+
+	@Test
+	void uninformedParametersAreLeftOutOfTheFilter() {
+		TicketFilter filter = search(TECHNICIAN, 0, "uninformed", "uninformed", false);
+
+		assertNull(filter.getTitle());
+		assertNull(filter.getStatus());
+		assertNull(filter.getPriority());
+	}
+
+	@Test
+	void statusListsAreParsedIgnoringCase() {
+		TicketFilter filter = search(TECHNICIAN, 0, "printer", "new, Closed", false);
+
+		assertEquals("printer", filter.getTitle());
+		assertEquals(Arrays.asList(StatusEnum.New, StatusEnum.Closed), filter.getStatus());
+		assertThrows(IllegalArgumentException.class, () -> search(TECHNICIAN, 0, "uninformed", "Lost", false));
+	}
+
+	@Test
+	void numberSearchIgnoresEveryOtherFilter() {
+		TicketFilter filter = search(TECHNICIAN, 42, "printer", "New", true);
+
+		assertEquals(42, filter.getNumber().intValue());
+		assertNull(filter.getAssignedUserId());
+		assertNull(filter.getTitle());
+		assertNull(filter.getStatus());
+	}
+
+	@Test
+	void customerNumberSearchStaysScopedToTheirTickets() {
+		TicketFilter filter = search(CUSTOMER, 42, "uninformed", "uninformed", false);
+
+		assertEquals(42, filter.getNumber().intValue());
+		assertEquals("c1", filter.getUserId());
+	}
+
+	private static TicketFilter search(AuthenticatedUser userRequest, int number, String title, String status, boolean assigned) {
+		return TicketFilters.searchFilter(userRequest, number, title, status, "uninformed", assigned, null, null);
+	}
+
+}
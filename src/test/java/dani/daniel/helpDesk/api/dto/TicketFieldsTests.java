@@ -0,0 +1,39 @@
+package dani.daniel.helpDesk.api.dto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+
+import org.junit.jupiter.api.Test;
+
+class TicketFieldsTests {
+
+	@Test
+	void listsReadTheListViewByDefault() {
+		assertSame(TicketFields.LIST_VIEW, TicketFields.parse(null));
+		assertSame(TicketFields.LIST_VIEW, TicketFields.parse(" "));
+		assertFalse(TicketFields.LIST_VIEW.contains("description"));
+	}
+
+	@Test
+	void starAsksForWholeTickets() {
+		assertNull(TicketFields.parse("*"));
+	}
+
+	@Test
+	void requestedFieldsAlwaysIncludeTheId() {
+		assertEquals(new LinkedHashSet<String>(Arrays.asList("id", "title", "status")), TicketFields.parse("title, status"));
+	}
+
+	@Test
+	void unknownOrInternalFieldsAreRejected() {
+		assertThrows(IllegalArgumentException.class, () -> TicketFields.parse("title,password"));
+		assertThrows(IllegalArgumentException.class, () -> TicketFields.parse("image"));
+	}
+
+}
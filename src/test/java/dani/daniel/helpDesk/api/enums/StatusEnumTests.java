@@ -0,0 +1,41 @@
+package dani.daniel.helpDesk.api.enums;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.EnumSet;
+
+import org.junit.jupiter.api.Test;
+
+class StatusEnumTests {
+
+	@Test
+	void workflowOnlyMovesForward() {
+		assertEquals(EnumSet.of(StatusEnum.New, StatusEnum.Disapproved), StatusEnum.Assigned.allowedFrom());
+		assertEquals(EnumSet.of(StatusEnum.Assigned), StatusEnum.Resolved.allowedFrom());
+		assertEquals(EnumSet.of(StatusEnum.Resolved), StatusEnum.Approved.allowedFrom());
+		assertEquals(EnumSet.of(StatusEnum.Resolved), StatusEnum.Disapproved.allowedFrom());
+		assertEquals(EnumSet.of(StatusEnum.Approved), StatusEnum.Closed.allowedFrom());
+	}
+
+	@Test
+	void nothingMovesBackToNew() {
+		assertTrue(StatusEnum.New.allowedFrom().isEmpty());
+	}
+
+	@Test
+	void noStatusIsReachableFromItself() {
+		for (StatusEnum status : StatusEnum.values()) {
+			assertFalse(status.allowedFrom().contains(status), status.name());
+		}
+	}
+
+	@Test
+	void onlyExactNamesAreValid() {
+		assertTrue(StatusEnum.isValid("Closed"));
+		assertFalse(StatusEnum.isValid("closed"));
+		assertFalse(StatusEnum.isValid(null));
+	}
+
+}
@@ -0,0 +1,103 @@
+package dani.daniel.helpDesk.api.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.mongodb.DBRef;
+
+import dani.daniel.helpDesk.api.ChangeStatus;
+import dani.daniel.helpDesk.api.User;
+import dani.daniel.helpDesk.api.enums.StatusEnum;
+
+class ChangeStatusRepositoryImplTests {
+
+	private static final String TICKET_ID = "5f8d0d55b54764421b7156c9";
+	private static final ObjectId USER_ID = new ObjectId("5f8d0d55b54764421b7156ca");
+
+	private MongoTemplate mongoTemplate;
+	private ChangeStatusRepositoryImpl repository;
+
+	@BeforeEach
+	void setUp() {
+		mongoTemplate = mock(MongoTemplate.class);
+		when(mongoTemplate.getCollectionName(ChangeStatus.class)).thenReturn("changeStatus");
+		repository = new ChangeStatusRepositoryImpl();
+		ReflectionTestUtils.setField(repository, "mongoTemplate", mongoTemplate);
+	}
+
+	@Test
+	void historyQueryLeavesOutTheTicketAndSortsNewestFirst() {
+		Query query = ChangeStatusRepositoryImpl.historyQuery(TICKET_ID);
+
+		assertEquals(new ObjectId(TICKET_ID), query.getQueryObject().get("ticket.$id"));
+		assertEquals(new Document("dateChangeStatus", -1), query.getSortObject());
+		assertEquals(new Document("ticket", 0), query.getFieldsObject());
+	}
+
+	@Test
+	void usersOfTheWholeHistoryAreLoadedWithOneQuery() {
+		when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("changeStatus"))).thenReturn(Arrays.asList(
+				change(StatusEnum.Closed, USER_ID),
+				change(StatusEnum.Assigned, USER_ID),
+				change(StatusEnum.New, null)));
+		User user = new User();
+		user.setId(USER_ID.toHexString());
+		when(mongoTemplate.find(any(Query.class), eq(User.class))).thenReturn(Collections.singletonList(user));
+
+		List<ChangeStatus> history = repository.findHistoryByTicketId(TICKET_ID);
+
+		assertEquals(3, history.size());
+		assertEquals(StatusEnum.Closed, history.get(0).getStatus());
+		assertSame(user, history.get(0).getUserChange());
+		assertSame(user, history.get(1).getUserChange());
+		assertNull(history.get(2).getUserChange());
+		assertNull(history.get(0).getTicket());
+		ArgumentCaptor<Query> users = ArgumentCaptor.forClass(Query.class);
+		verify(mongoTemplate, times(1)).find(users.capture(), eq(User.class));
+		Collection<?> userIds = (Collection<?>) users.getValue().getQueryObject().get("_id", Document.class).get("$in");
+		assertEquals(Collections.singletonList(USER_ID), new ArrayList<Object>(userIds));
+	}
+
+	@Test
+	void emptyHistoryLoadsNoUsers() {
+		when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("changeStatus"))).thenReturn(Collections.emptyList());
+
+		assertEquals(0, repository.findHistoryByTicketId(TICKET_ID).size());
+		verify(mongoTemplate, never()).find(any(Query.class), eq(User.class));
+	}
+
+	private static Document change(StatusEnum status, ObjectId userId) {
+		Document document = new Document("_id", new ObjectId())
+				.append("dateChangeStatus", new Date())
+				.append("status", status.name());
+		if (userId != null) {
+			document.append("userChange", new DBRef("user", userId));
+		}
+		return document;
+	}
+
+}
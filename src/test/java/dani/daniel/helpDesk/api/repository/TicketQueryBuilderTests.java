@@ -0,0 +1,110 @@
+package dani.daniel.helpDesk.api.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import dani.daniel.helpDesk.api.dto.TicketFilter;
+import dani.daniel.helpDesk.api.enums.PriorityEnum;
+import dani.daniel.helpDesk.api.enums.StatusEnum;
+
+class TicketQueryBuilderTests {
+
+	private static final String USER_ID = "5f8d0d55b54764421b7156c9";
+
+	private TicketQueryBuilder ticketQueryBuilder;
+
+	@BeforeEach
+	void setUp() {
+		ticketQueryBuilder = new TicketQueryBuilder();
+		ReflectionTestUtils.setField(ticketQueryBuilder, "titleMatcher", new RegexTitleMatcher());
+	}
+
+	@Test
+	void emptyFilterMatchesEverything() {
+		assertTrue(ticketQueryBuilder.criteria(new TicketFilter()).isEmpty());
+		assertEquals(new Document(), ticketQueryBuilder.query(new TicketFilter()).getQueryObject());
+	}
+
+	@Test
+	void onlySuppliedFiltersAreAdded() {
+		TicketFilter filter = new TicketFilter();
+		filter.setUserId(USER_ID);
+		filter.setStatus(Collections.singletonList(StatusEnum.New));
+
+		List<Document> and = and(filter);
+
+		assertEquals(2, and.size());
+		assertEquals(new Document("user.$id", new ObjectId(USER_ID)), and.get(0));
+		assertEquals(new Document("status", "New"), and.get(1));
+	}
+
+	@Test
+	void severalValuesOfAnEnumBecomeAnIn() {
+		TicketFilter filter = new TicketFilter();
+		filter.setPriority(Arrays.asList(PriorityEnum.High, PriorityEnum.Low));
+
+		assertEquals(new Document("priority", new Document("$in", Arrays.asList("High", "Low"))), and(filter).get(0));
+	}
+
+	@Test
+	void titleIsMatchedLiterallyIgnoringCase() {
+		TicketFilter filter = new TicketFilter();
+		filter.setTitle("a.b*");
+
+		Pattern title = (Pattern) and(filter).get(0).get("title");
+
+		assertEquals(Pattern.quote("a.b*"), title.pattern());
+		assertTrue(title.matcher("A.B*").find());
+		assertTrue(!title.matcher("axbb").find());
+	}
+
+	@Test
+	void requestedFieldsAreTheOnlyOnesRead() {
+		TicketFilter filter = new TicketFilter();
+		filter.setFields(Collections.singleton("title"));
+
+		assertEquals(new Document("title", 1), ticketQueryBuilder.query(filter).getFieldsObject());
+	}
+
+	@Test
+	void freeTextUsesTheTextIndexAndSortsByRelevance() {
+		TicketFilter filter = new TicketFilter();
+		filter.setText("printer jam");
+		filter.setStatus(Collections.singletonList(StatusEnum.New));
+
+		Query query = ticketQueryBuilder.query(filter);
+
+		assertEquals(new Document("$search", "printer jam"), query.getQueryObject().get("$text"));
+		assertEquals(new Document("status", "New"), query.getQueryObject().getList("$and", Document.class).get(0));
+		assertTrue(query.getSortObject().containsKey("score"));
+	}
+
+	@Test
+	void blankTextIsIgnored() {
+		TicketFilter filter = new TicketFilter();
+		filter.setText("");
+
+		Query query = ticketQueryBuilder.query(filter);
+
+		assertFalse(query.getQueryObject().containsKey("$text"));
+		assertFalse(query.isSorted());
+	}
+
+	private List<Document> and(TicketFilter filter) {
+		return ticketQueryBuilder.query(filter).getQueryObject().getList("$and", Document.class);
+	}
+
+}
@@ -0,0 +1,322 @@
+package dani.daniel.helpDesk.api.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteInsert;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+
+import dani.daniel.helpDesk.api.Ticket;
+import dani.daniel.helpDesk.api.User;
+import dani.daniel.helpDesk.api.dto.CursorPage;
+import dani.daniel.helpDesk.api.dto.Summary;
+import dani.daniel.helpDesk.api.dto.TicketFields;
+import dani.daniel.helpDesk.api.dto.TicketFilter;
+import dani.daniel.helpDesk.api.dto.TicketStatusMove;
+import dani.daniel.helpDesk.api.enums.StatusEnum;
+
+class TicketRepositoryImplTests {
+
+	private static final String USER_ID = "5f8d0d55b54764421b7156c9";
+
+	private MongoTemplate mongoTemplate;
+	private TicketRepositoryImpl repository;
+
+	@BeforeEach
+	void setUp() {
+		mongoTemplate = mock(MongoTemplate.class);
+		TicketQueryBuilder ticketQueryBuilder = new TicketQueryBuilder();
+		ReflectionTestUtils.setField(ticketQueryBuilder, "titleMatcher", new RegexTitleMatcher());
+		repository = new TicketRepositoryImpl();
+		ReflectionTestUtils.setField(repository, "mongoTemplate", mongoTemplate);
+		ReflectionTestUtils.setField(repository, "ticketQueryBuilder", ticketQueryBuilder);
+	}
+
+	@Test
+	void cursorPageReadsOneExtraTicketToKnowIfThereIsANextPage() {
+		List<Ticket> stored = tickets(3);
+		when(mongoTemplate.find(any(Query.class), eq(Ticket.class))).thenReturn(stored);
+
+		CursorPage<Ticket> page = repository.findByCursor(new TicketFilter(), null, 2);
+
+		assertEquals(2, page.getContent().size());
+		assertTrue(page.isHasNext());
+		Query query = lastFind();
+		assertEquals(3, query.getLimit());
+		assertEquals(new Document("date", -1).append("_id", -1), query.getSortObject());
+		assertEquals(new Document(), query.getQueryObject());
+	}
+
+	@Test
+	void nextCursorSeeksPastTheLastTicketOfThePage() {
+		List<Ticket> stored = tickets(3);
+		when(mongoTemplate.find(any(Query.class), eq(Ticket.class))).thenReturn(stored);
+		String cursor = repository.findByCursor(new TicketFilter(), null, 2).getNextCursor();
+
+		repository.findByCursor(new TicketFilter(), cursor, 2);
+
+		Ticket last = stored.get(1);
+		Document seek = lastFind().getQueryObject().getList("$and", Document.class).get(0);
+		List<Document> or = seek.getList("$or", Document.class);
+		assertEquals(new Document("date", new Document("$lt", last.getDate())), or.get(0));
+		List<Document> tie = or.get(1).getList("$and", Document.class);
+		assertEquals(new Document("date", last.getDate()), tie.get(0));
+		assertEquals(new Document("_id", new Document("$lt", new ObjectId(last.getId()))), tie.get(1));
+	}
+
+	@Test
+	void lastCursorPageHasNoNextCursor() {
+		when(mongoTemplate.find(any(Query.class), eq(Ticket.class))).thenReturn(tickets(2));
+
+		CursorPage<Ticket> page = repository.findByCursor(new TicketFilter(), null, 2);
+
+		assertEquals(2, page.getContent().size());
+		assertNull(page.getNextCursor());
+		assertFalse(page.isHasNext());
+	}
+
+	@Test
+	void projectedCursorPagesStillReadTheDateTheCursorIsBuiltFrom() {
+		when(mongoTemplate.find(any(Query.class), eq(Ticket.class))).thenReturn(tickets(1));
+		TicketFilter filter = new TicketFilter();
+		filter.setFields(TicketFields.parse("title"));
+
+		repository.findByCursor(filter, null, 2);
+
+		assertEquals(new Document("id", 1).append("title", 1).append("date", 1), lastFind().getFieldsObject());
+	}
+
+	@Test
+	void malformedCursorIsRejected() {
+		assertThrows(IllegalArgumentException.class, () -> repository.findByCursor(new TicketFilter(), "not-a-cursor", 2));
+		assertThrows(IllegalArgumentException.class, () -> repository.findByCursor(new TicketFilter(), null, 0));
+	}
+
+	@Test
+	void sliceReadsOneExtraTicketInsteadOfCounting() {
+		when(mongoTemplate.find(any(Query.class), eq(Ticket.class))).thenReturn(tickets(3));
+
+		Slice<Ticket> slice = repository.findSliceByFilter(new TicketFilter(), 1, 2);
+
+		assertEquals(2, slice.getContent().size());
+		assertTrue(slice.hasNext());
+		Query query = lastFind();
+		assertEquals(2, query.getSkip());
+		assertEquals(3, query.getLimit());
+		verify(mongoTemplate, never()).count(any(Query.class), eq(Ticket.class));
+	}
+
+	@Test
+	void lastSliceHasNoNext() {
+		when(mongoTemplate.find(any(Query.class), eq(Ticket.class))).thenReturn(tickets(1));
+
+		Slice<Ticket> slice = repository.findSliceByFilter(new TicketFilter(), 3, 2);
+
+		assertEquals(1, slice.getContent().size());
+		assertFalse(slice.hasNext());
+		assertEquals(3, slice.getNumber());
+	}
+
+	@Test
+	void statusChangeIsOneConditionalFindAndModify() {
+		User technician = new User();
+		technician.setId(USER_ID);
+
+		repository.changeStatus("1", StatusEnum.Assigned, technician);
+
+		ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+		ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+		verify(mongoTemplate).findAndModify(query.capture(), update.capture(), eq(Ticket.class));
+		assertEquals(new Document("$in", Arrays.asList("New", "Disapproved")), query.getValue().getQueryObject().get("status"));
+		assertEquals(new Document("image", 0), query.getValue().getFieldsObject());
+		Document updateObject = update.getValue().getUpdateObject();
+		assertEquals("Assigned", updateObject.get("$set", Document.class).get("status"));
+		assertSame(technician, updateObject.get("$set", Document.class).get("assignedUser"));
+		assertEquals(new Document("version", 1), updateObject.get("$inc"));
+	}
+
+	@Test
+	void bulkStatusChangeIsOneBulkWriteAndOneReadBack() {
+		String moved = new ObjectId().toHexString();
+		String taken = new ObjectId().toHexString();
+		String missing = new ObjectId().toHexString();
+		BulkOperations bulkOperations = mock(BulkOperations.class);
+		when(mongoTemplate.bulkOps(BulkMode.UNORDERED, Ticket.class)).thenReturn(bulkOperations);
+		when(mongoTemplate.getCollectionName(Ticket.class)).thenReturn("ticket");
+		ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+		ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+		when(bulkOperations.updateOne(queries.capture(), updates.capture())).thenReturn(bulkOperations);
+		when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("ticket"))).thenAnswer(invocation -> {
+			Document stamp = updates.getAllValues().get(0).getUpdateObject().get("$set", Document.class).get("lastStatusChange", Document.class);
+			return Arrays.asList(
+					new Document("_id", new ObjectId(moved)).append("status", "Assigned")
+							.append("lastStatusChange", new Document("_id", stamp.getString("_id")).append("from", "Disapproved")),
+					new Document("_id", new ObjectId(taken)).append("status", "Assigned")
+							.append("lastStatusChange", new Document("_id", new ObjectId().toHexString()).append("from", "New")));
+		});
+
+		Map<String, TicketStatusMove> moves = repository.changeStatus(Arrays.asList(moved, taken, missing), StatusEnum.Assigned, null);
+
+		verify(bulkOperations).execute();
+		assertEquals(6, queries.getAllValues().size());
+		assertEquals(new Document("_id", moved).append("status", "New"), queries.getAllValues().get(0).getQueryObject());
+		assertEquals(new Document("_id", moved).append("status", "Disapproved"), queries.getAllValues().get(1).getQueryObject());
+		assertEquals(StatusEnum.Disapproved, moves.get(moved).getFrom());
+		assertTrue(moves.get(moved).isMoved());
+		assertFalse(moves.get(taken).isMoved());
+		assertEquals(StatusEnum.Assigned, moves.get(taken).getStatus());
+		assertFalse(moves.containsKey(missing));
+		ArgumentCaptor<Query> readBack = ArgumentCaptor.forClass(Query.class);
+		verify(mongoTemplate).find(readBack.capture(), eq(Document.class), eq("ticket"));
+		assertEquals(Arrays.asList(new ObjectId(moved), new ObjectId(taken), new ObjectId(missing)),
+				readBack.getValue().getQueryObject().get("_id", Document.class).get("$in"));
+	}
+
+	@Test
+	void bulkChangeToAStatusNothingMovesToOnlyReadsBack() {
+		when(mongoTemplate.getCollectionName(Ticket.class)).thenReturn("ticket");
+		when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("ticket")))
+				.thenReturn(Collections.singletonList(new Document("_id", "1").append("status", "Closed")));
+
+		Map<String, TicketStatusMove> moves = repository.changeStatus(Arrays.asList("1"), StatusEnum.New, null);
+
+		assertFalse(moves.get("1").isMoved());
+		verify(mongoTemplate, never()).bulkOps(any(BulkMode.class), eq(Ticket.class));
+	}
+
+	@Test
+	void statusUpdateKeepsTheAssigneeWhenNoneIsGiven() {
+		Document set = TicketRepositoryImpl.statusUpdate(StatusEnum.Resolved, null).getUpdateObject().get("$set", Document.class);
+
+		assertEquals(new Document("status", "Resolved"), set);
+		assertEquals(5L, TicketRepositoryImpl.nextVersion(4L).longValue());
+		assertEquals(1L, TicketRepositoryImpl.nextVersion(null).longValue());
+	}
+
+	@Test
+	void unorderedImportMapsWriteErrorsToTheirRows() {
+		BulkOperations bulkOperations = mock(BulkOperations.class);
+		when(mongoTemplate.bulkOps(BulkMode.UNORDERED, Ticket.class)).thenReturn(bulkOperations);
+		when(bulkOperations.insert(anyList())).thenReturn(bulkOperations);
+		BulkWriteResult inserted = BulkWriteResult.acknowledged(2, 0, 0, 0,
+				Collections.<BulkWriteUpsert>emptyList(), Collections.<BulkWriteInsert>emptyList());
+		List<BulkWriteError> writeErrors = Arrays.asList(
+				new BulkWriteError(11000, "E11000 duplicate key", new BsonDocument(), 1),
+				new BulkWriteError(121, "Document failed validation", new BsonDocument(), 3));
+		when(bulkOperations.execute()).thenThrow(new BulkOperationException("bulk write failed",
+				new MongoBulkWriteException(inserted, writeErrors, null, new ServerAddress())));
+
+		Map<Integer, String> errors = repository.insertUnordered(tickets(4));
+
+		assertEquals(2, errors.size());
+		assertEquals("E11000 duplicate key", errors.get(1));
+		assertEquals("Document failed validation", errors.get(3));
+	}
+
+	@Test
+	void cleanImportHasNoErrors() {
+		BulkOperations bulkOperations = mock(BulkOperations.class);
+		when(mongoTemplate.bulkOps(BulkMode.UNORDERED, Ticket.class)).thenReturn(bulkOperations);
+		when(bulkOperations.insert(anyList())).thenReturn(bulkOperations);
+
+		assertTrue(repository.insertUnordered(tickets(2)).isEmpty());
+	}
+
+	@Test
+	void unfilteredSummaryOnlyGroupsByStatus() {
+		List<Document> pipeline = pipeline(TicketRepositoryImpl.summaryAggregation(null, null, null, null));
+
+		assertEquals(1, pipeline.size());
+		assertEquals(Document.parse("{$group: {_id: '$status', count: {$sum: 1}}}"), pipeline.get(0));
+	}
+
+	@Test
+	void summaryMatchesOwnerAndDateRangeBeforeGrouping() {
+		Date from = new Date(1000);
+		Date to = new Date(2000);
+
+		List<Document> pipeline = pipeline(TicketRepositoryImpl.summaryAggregation(USER_ID, null, from, to));
+
+		Document match = pipeline.get(0).get("$match", Document.class);
+		assertEquals(new ObjectId(USER_ID), match.get("user.$id"));
+		assertEquals(new Document("$gte", from).append("$lte", to), match.get("date"));
+		assertEquals("$status", pipeline.get(1).get("$group", Document.class).get("_id"));
+	}
+
+	@Test
+	void summaryCountsEveryStatusAndDefaultsMissingOnesToZero() {
+		Summary summary = TicketRepositoryImpl.toSummary(Arrays.asList(
+				new Document("_id", "New").append("count", 3),
+				new Document("_id", "Closed").append("count", 2L),
+				new Document("_id", null).append("count", 7)));
+
+		assertEquals(3, summary.getAmountNew().intValue());
+		assertEquals(2, summary.getAmountClosed().intValue());
+		assertEquals(0, summary.getAmountAssigned().intValue());
+		assertEquals(0, summary.getAmountResolved().intValue());
+		assertEquals(0, summary.getAmountApproved().intValue());
+		assertEquals(0, summary.getAmountDisapproved().intValue());
+	}
+
+	private Query lastFind() {
+		ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+		verify(mongoTemplate, atLeastOnce()).find(query.capture(), eq(Ticket.class));
+		return query.getValue();
+	}
+
+	private static List<Ticket> tickets(int amount) {
+		List<Ticket> tickets = new ArrayList<Ticket>();
+		long date = 1600000000000L;
+		for (int i = 0; i < amount; i++) {
+			Ticket ticket = new Ticket();
+			ticket.setId(new ObjectId().toHexString());
+			ticket.setDate(new Date(date - i * 1000));
+			tickets.add(ticket);
+		}
+		return tickets;
+	}
+
+	private static List<Document> pipeline(Aggregation aggregation) {
+		return aggregation.toPipeline(Aggregation.DEFAULT_CONTEXT);
+	}
+
+}
@@ -0,0 +1,117 @@
+package dani.daniel.helpDesk.api.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.LazyLoadingProxy;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.mongodb.DBRef;
+
+import dani.daniel.helpDesk.api.Ticket;
+import dani.daniel.helpDesk.api.User;
+
+class UserReferenceResolverTests {
+
+	private static final ObjectId CUSTOMER = new ObjectId("5f8d0d55b54764421b7156c9");
+	private static final ObjectId TECHNICIAN = new ObjectId("5f8d0d55b54764421b7156ca");
+
+	private MongoTemplate mongoTemplate;
+	private UserReferenceResolver resolver;
+
+	@BeforeEach
+	void setUp() {
+		mongoTemplate = mock(MongoTemplate.class);
+		when(mongoTemplate.find(any(Query.class), eq(User.class))).thenReturn(Arrays.asList(user(CUSTOMER), user(TECHNICIAN)));
+		resolver = new UserReferenceResolver();
+		ReflectionTestUtils.setField(resolver, "mongoTemplate", mongoTemplate);
+	}
+
+	@AfterEach
+	void tearDown() {
+		RequestContextHolder.resetRequestAttributes();
+	}
+
+	@Test
+	void aPageOfTicketsLoadsItsUsersWithOneProjectedQuery() {
+		Ticket first = ticket(CUSTOMER, TECHNICIAN);
+		Ticket second = ticket(CUSTOMER, null);
+
+		resolver.resolve(Arrays.asList(first, second));
+
+		ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+		verify(mongoTemplate, times(1)).find(query.capture(), eq(User.class));
+		Collection<?> ids = (Collection<?>) query.getValue().getQueryObject().get("_id", Document.class).get("$in");
+		assertEquals(Arrays.asList(CUSTOMER, TECHNICIAN), new ArrayList<Object>(ids));
+		assertEquals(new Document("email", 1).append("profile", 1), query.getValue().getFieldsObject());
+		assertEquals(CUSTOMER.toHexString(), first.getUser().getId());
+		assertEquals(TECHNICIAN.toHexString(), first.getAssignedUser().getId());
+		assertSame(first.getUser(), second.getUser());
+	}
+
+	@Test
+	void usersLoadedEarlierInTheRequestAreNotReadAgain() {
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+
+		resolver.resolve(Collections.singletonList(ticket(CUSTOMER, TECHNICIAN)));
+		resolver.resolve(Collections.singletonList(ticket(CUSTOMER, null)));
+
+		verify(mongoTemplate, times(1)).find(any(Query.class), eq(User.class));
+	}
+
+	@Test
+	void ticketsWithoutReferencesSkipTheQuery() {
+		Ticket ticket = new Ticket();
+		ticket.setUser(user(CUSTOMER));
+
+		resolver.resolve(Collections.singletonList(ticket));
+
+		verify(mongoTemplate, never()).find(any(Query.class), eq(User.class));
+	}
+
+	private static Ticket ticket(ObjectId userId, ObjectId assignedUserId) {
+		Ticket ticket = new Ticket();
+		ticket.setUser(reference(userId));
+		if (assignedUserId != null) {
+			ticket.setAssignedUser(reference(assignedUserId));
+		}
+		return ticket;
+	}
+
+	private static User reference(ObjectId id) {
+		User proxy = mock(User.class, withSettings().extraInterfaces(LazyLoadingProxy.class));
+		when(((LazyLoadingProxy) proxy).toDBRef()).thenReturn(new DBRef("user", id));
+		return proxy;
+	}
+
+	private static User user(ObjectId id) {
+		User user = new User();
+		user.setId(id.toHexString());
+		return user;
+	}
+
+}
@@ -0,0 +1,74 @@
+package dani.daniel.helpDesk.api.security.jwt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Collections;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import dani.daniel.helpDesk.api.enums.ProfileEnum;
+import dani.daniel.helpDesk.api.security.model.AuthenticatedUser;
+
+class AuthenticatedUserArgumentResolverTests {
+
+	private final AuthenticatedUserArgumentResolver resolver = new AuthenticatedUserArgumentResolver();
+
+	@AfterEach
+	void tearDown() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void resolvesTheAuthenticatedPrincipal() throws Exception {
+		authenticate(user("ROLE_TECHNICIAN"));
+
+		AuthenticatedUser userRequest = resolve();
+
+		assertEquals("1", userRequest.getId());
+		assertEquals("user@helpdesk.com", userRequest.getEmail());
+		assertEquals(ProfileEnum.ROLE_TECHNICIAN, userRequest.getProfile());
+	}
+
+	@Test
+	void profileComesFromTheLoadedAuthoritiesNotTheToken() throws Exception {
+		JwtTokenUtil tokenUtil = new JwtTokenUtil();
+		ReflectionTestUtils.setField(tokenUtil, "secret", "test-secret");
+		ReflectionTestUtils.setField(tokenUtil, "expiration", 60L);
+		ReflectionTestUtils.setField(tokenUtil, "claimsCache", new JwtClaimsCache(10));
+		String token = tokenUtil.generateToken(user("ROLE_CUSTOMER"));
+		assertNull(tokenUtil.getClaimsFromToken(token).get(JwtTokenUtil.CLAIM_KEY_PROFILE));
+
+		authenticate(user("ROLE_TECHNICIAN"));
+
+		assertEquals(ProfileEnum.ROLE_TECHNICIAN, resolve().getProfile());
+	}
+
+	@Test
+	void anonymousRequestsResolveToNull() throws Exception {
+		assertNull(resolve());
+	}
+
+	private AuthenticatedUser resolve() throws Exception {
+		return (AuthenticatedUser) resolver.resolveArgument(null, null,
+				new ServletWebRequest(new MockHttpServletRequest()), null);
+	}
+
+	private static void authenticate(JwtUser user) {
+		SecurityContextHolder.getContext().setAuthentication(
+				new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+	}
+
+	private static JwtUser user(String profile) {
+		return new JwtUser("1", "user@helpdesk.com", "secret",
+				Collections.singletonList(new SimpleGrantedAuthority(profile)));
+	}
+
+}
@@ -0,0 +1,118 @@
+package dani.daniel.helpDesk.api.security.jwt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.WebFilterChain;
+
+import dani.daniel.helpDesk.api.User;
+import dani.daniel.helpDesk.api.enums.ProfileEnum;
+import dani.daniel.helpDesk.api.repository.ReactiveUserRepository;
+import dani.daniel.helpDesk.api.security.service.UserDetailsCache;
+import reactor.core.publisher.Mono;
+
+class JwtAuthenticationWebFilterTests {
+
+	private static final String EMAIL = "user@helpdesk.com";
+
+	private JwtTokenUtil jwtTokenUtil;
+	private UserDetailsCache userDetailsCache;
+	private ReactiveUserRepository userRepository;
+	private JwtAuthenticationWebFilter filter;
+	private AtomicReference<Authentication> authenticated;
+	private WebFilterChain chain;
+
+	@BeforeEach
+	void setUp() {
+		jwtTokenUtil = new JwtTokenUtil();
+		ReflectionTestUtils.setField(jwtTokenUtil, "secret", "test-secret");
+		ReflectionTestUtils.setField(jwtTokenUtil, "expiration", 60L);
+		ReflectionTestUtils.setField(jwtTokenUtil, "claimsCache", new JwtClaimsCache(10));
+		userDetailsCache = new UserDetailsCache(10, 60);
+		userRepository = mock(ReactiveUserRepository.class);
+		filter = new JwtAuthenticationWebFilter(jwtTokenUtil, userDetailsCache, userRepository);
+		authenticated = new AtomicReference<Authentication>();
+		chain = exchange -> ReactiveSecurityContextHolder.getContext()
+				.map(SecurityContext::getAuthentication)
+				.doOnNext(authenticated::set)
+				.then();
+	}
+
+	@Test
+	void cachedUserIsAuthenticatedWithoutLoadingIt() {
+		JwtUser user = user();
+		userDetailsCache.put(EMAIL, user);
+
+		filter(jwtTokenUtil.generateToken(user));
+
+		assertSame(user, authenticated.get().getPrincipal());
+		verify(userRepository, never()).findByEmail(anyString());
+	}
+
+	@Test
+	void userMissingFromTheCacheIsLoadedAndCached() {
+		User stored = new User();
+		stored.setId("1");
+		stored.setEmail(EMAIL);
+		stored.setPassword("secret");
+		stored.setProfile(ProfileEnum.ROLE_TECHNICIAN);
+		when(userRepository.findByEmail(EMAIL)).thenReturn(Mono.just(stored));
+
+		filter(jwtTokenUtil.generateToken(user()));
+
+		JwtUser principal = (JwtUser) authenticated.get().getPrincipal();
+		assertEquals("1", principal.getId());
+		assertEquals("ROLE_TECHNICIAN", principal.getAuthorities().iterator().next().getAuthority());
+		assertSame(principal, userDetailsCache.getIfPresent(EMAIL));
+	}
+
+	@Test
+	void unknownUserPassesThroughUnauthenticated() {
+		when(userRepository.findByEmail(EMAIL)).thenReturn(Mono.empty());
+
+		filter(jwtTokenUtil.generateToken(user()));
+
+		assertNull(authenticated.get());
+	}
+
+	@Test
+	void requestsWithoutAValidTokenAreNotAuthenticated() {
+		filter(null);
+		filter("not-a-token");
+
+		assertNull(authenticated.get());
+		verify(userRepository, never()).findByEmail(anyString());
+	}
+
+	private void filter(String token) {
+		MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get("/api/ticket/1");
+		if (token != null) {
+			request.header("Authorization", token);
+		}
+		filter.filter(MockServerWebExchange.from(request), chain).block();
+	}
+
+	private static JwtUser user() {
+		return new JwtUser("1", EMAIL, "secret",
+				Collections.singletonList(new SimpleGrantedAuthority("ROLE_TECHNICIAN")));
+	}
+
+}
@@ -0,0 +1,129 @@
+package dani.daniel.helpDesk.api.security.jwt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+
+class JwtClaimsCacheTests {
+
+	private JwtClaimsCache cache;
+	private AtomicInteger verifications;
+
+	@BeforeEach
+	void setUp() {
+		cache = new JwtClaimsCache(100);
+		verifications = new AtomicInteger();
+	}
+
+	@Test
+	void verifiesATokenOnceUntilItExpires() {
+		Date expiration = new Date(System.currentTimeMillis() + 60000);
+
+		cache.get("token", token -> verify(expiration));
+		Claims claims = cache.get("token", token -> verify(expiration));
+
+		assertEquals(1, verifications.get());
+		assertEquals("user@helpdesk.com", claims.getSubject());
+	}
+
+	@Test
+	void expiredTokensAreVerifiedAgain() {
+		Date expiration = new Date(System.currentTimeMillis() - 1000);
+
+		cache.get("token", token -> verify(expiration));
+		cache.get("token", token -> verify(expiration));
+
+		assertEquals(2, verifications.get());
+	}
+
+	@Test
+	void rejectedTokensAreNotCached() {
+		assertNull(cache.get("forged", token -> {
+			verifications.incrementAndGet();
+			return null;
+		}));
+		cache.get("forged", token -> verify(new Date(System.currentTimeMillis() + 60000)));
+
+		assertEquals(2, verifications.get());
+	}
+
+	@Test
+	void tokenUtilReadsSignedClaimsThroughTheCache() {
+		JwtTokenUtil tokenUtil = new JwtTokenUtil();
+		ReflectionTestUtils.setField(tokenUtil, "secret", "test-secret");
+		ReflectionTestUtils.setField(tokenUtil, "expiration", 60L);
+		ReflectionTestUtils.setField(tokenUtil, "claimsCache", cache);
+		JwtUser user = new JwtUser("1", "user@helpdesk.com", "secret",
+				Collections.singletonList(new SimpleGrantedAuthority("ROLE_CUSTOMER")));
+
+		String token = tokenUtil.generateToken(user);
+
+		assertEquals("user@helpdesk.com", tokenUtil.getUsernameFromToken(token));
+		assertEquals("1", tokenUtil.getClaimsFromToken(token).get(JwtTokenUtil.CLAIM_KEY_USER_ID));
+		assertTrue(tokenUtil.validateToken(token, user));
+		assertNull(tokenUtil.getUsernameFromToken(token + "x"));
+	}
+
+	@Test
+	void tokensAreBoundToTheUserIdTheyWereIssuedFor() {
+		JwtTokenUtil tokenUtil = tokenUtil();
+		String token = tokenUtil.generateToken(user("1"));
+		Claims claims = tokenUtil.getClaimsFromToken(token);
+
+		assertTrue(tokenUtil.validateToken(claims, user("1")));
+		assertFalse(tokenUtil.validateToken(claims, user("2")));
+		assertNull(claims.get(JwtTokenUtil.CLAIM_KEY_PROFILE));
+	}
+
+	@Test
+	void tokensIssuedWithoutAUserIdAreStillAccepted() {
+		Claims claims = verify(new Date(System.currentTimeMillis() + 60000));
+
+		assertTrue(tokenUtil().validateToken(claims, user("1")));
+	}
+
+	@Test
+	void refreshedTokensDropTheSignedProfile() {
+		JwtTokenUtil tokenUtil = tokenUtil();
+		Claims legacy = verify(new Date(System.currentTimeMillis() + 60000));
+		legacy.put(JwtTokenUtil.CLAIM_KEY_PROFILE, "ROLE_TECHNICIAN");
+		cache.get("legacy", token -> legacy);
+
+		String refreshed = tokenUtil.refreshToken("legacy");
+
+		assertEquals("user@helpdesk.com", tokenUtil.getUsernameFromToken(refreshed));
+		assertNull(tokenUtil.getClaimsFromToken(refreshed).get(JwtTokenUtil.CLAIM_KEY_PROFILE));
+	}
+
+	private JwtTokenUtil tokenUtil() {
+		JwtTokenUtil tokenUtil = new JwtTokenUtil();
+		ReflectionTestUtils.setField(tokenUtil, "secret", "test-secret");
+		ReflectionTestUtils.setField(tokenUtil, "expiration", 60L);
+		ReflectionTestUtils.setField(tokenUtil, "claimsCache", cache);
+		return tokenUtil;
+	}
+
+	private static JwtUser user(String id) {
+		return new JwtUser(id, "user@helpdesk.com", "secret",
+				Collections.singletonList(new SimpleGrantedAuthority("ROLE_CUSTOMER")));
+	}
+
+	private Claims verify(Date expiration) {
+		verifications.incrementAndGet();
+		return Jwts.claims().setSubject("user@helpdesk.com").setExpiration(expiration);
+	}
+
+}
@@ -0,0 +1,44 @@
+package dani.daniel.helpDesk.api.security.jwt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+
+import dani.daniel.helpDesk.api.enums.ProfileEnum;
+import dani.daniel.helpDesk.api.security.model.AuthenticatedUser;
+
+class ReactiveAuthenticatedUserArgumentResolverTests {
+
+	private final ReactiveAuthenticatedUserArgumentResolver resolver = new ReactiveAuthenticatedUserArgumentResolver();
+
+	@Test
+	void resolvesThePrincipalFromTheSubscriberContext() {
+		JwtUser user = new JwtUser("1", "user@helpdesk.com", "secret",
+				Collections.singletonList(new SimpleGrantedAuthority("ROLE_CUSTOMER")));
+
+		AuthenticatedUser userRequest = (AuthenticatedUser) resolver.resolveArgument(null, null, null)
+				.subscriberContext(ReactiveSecurityContextHolder.withAuthentication(
+						new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities())))
+				.block();
+
+		assertEquals("1", userRequest.getId());
+		assertEquals("user@helpdesk.com", userRequest.getEmail());
+		assertEquals(ProfileEnum.ROLE_CUSTOMER, userRequest.getProfile());
+	}
+
+	@Test
+	void anonymousRequestsResolveToEmpty() {
+		assertNull(resolver.resolveArgument(null, null, null).block());
+		assertNull(resolver.resolveArgument(null, null, null)
+				.subscriberContext(ReactiveSecurityContextHolder.withAuthentication(
+						new UsernamePasswordAuthenticationToken("anonymous", null)))
+				.block());
+	}
+
+}
@@ -0,0 +1,98 @@
+package dani.daniel.helpDesk.api.security.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import dani.daniel.helpDesk.api.User;
+import dani.daniel.helpDesk.api.dto.CacheStatistics;
+import dani.daniel.helpDesk.api.enums.ProfileEnum;
+import dani.daniel.helpDesk.api.repository.UserRepository;
+import dani.daniel.helpDesk.api.service.impl.UserServiceImpl;
+
+class UserDetailsCacheTests {
+
+	private UserRepository userRepository;
+	private UserDetailsCache cache;
+	private UserServiceImpl userService;
+	private JwtUserDetailsServiceImpl userDetailsService;
+
+	@BeforeEach
+	void setUp() {
+		userRepository = mock(UserRepository.class);
+		cache = new UserDetailsCache(100, 60);
+		userService = new UserServiceImpl();
+		ReflectionTestUtils.setField(userService, "userRepository", userRepository);
+		ReflectionTestUtils.setField(userService, "userDetailsCache", cache);
+		userDetailsService = new JwtUserDetailsServiceImpl();
+		ReflectionTestUtils.setField(userDetailsService, "userService", userService);
+		ReflectionTestUtils.setField(userDetailsService, "userDetailsCache", cache);
+	}
+
+	@Test
+	void loadsEachUserFromMongoOnce() {
+		when(userRepository.findByEmail("user@helpdesk.com")).thenReturn(user("1", "user@helpdesk.com", ProfileEnum.ROLE_CUSTOMER));
+
+		userDetailsService.loadUserByUsername("user@helpdesk.com");
+		userDetailsService.loadUserByUsername("user@helpdesk.com");
+
+		verify(userRepository, times(1)).findByEmail("user@helpdesk.com");
+		CacheStatistics stats = userService.cacheStatistics();
+		assertEquals(1, stats.getHitCount());
+		assertEquals(1, stats.getMissCount());
+		assertEquals(1, stats.getSize());
+	}
+
+	@Test
+	void roleChangeIsSeenOnTheNextRequest() {
+		when(userRepository.findByEmail("user@helpdesk.com"))
+				.thenReturn(user("1", "user@helpdesk.com", ProfileEnum.ROLE_CUSTOMER))
+				.thenReturn(user("1", "user@helpdesk.com", ProfileEnum.ROLE_TECHNICIAN));
+		when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+		userDetailsService.loadUserByUsername("user@helpdesk.com");
+
+		userService.createOrUpdadte(user("1", "user@helpdesk.com", ProfileEnum.ROLE_TECHNICIAN));
+
+		assertEquals("ROLE_TECHNICIAN", userDetailsService.loadUserByUsername("user@helpdesk.com")
+				.getAuthorities().iterator().next().getAuthority());
+	}
+
+	@Test
+	void emailChangeEvictsTheEntryUnderTheOldEmail() {
+		when(userRepository.findByEmail("old@helpdesk.com")).thenReturn(user("1", "old@helpdesk.com", ProfileEnum.ROLE_CUSTOMER));
+		when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+		userDetailsService.loadUserByUsername("old@helpdesk.com");
+
+		userService.createOrUpdadte(user("1", "new@helpdesk.com", ProfileEnum.ROLE_CUSTOMER));
+
+		assertNull(cache.getIfPresent("old@helpdesk.com"));
+	}
+
+	@Test
+	void deletedUsersAreEvicted() {
+		when(userRepository.findByEmail("user@helpdesk.com")).thenReturn(user("1", "user@helpdesk.com", ProfileEnum.ROLE_CUSTOMER));
+		userDetailsService.loadUserByUsername("user@helpdesk.com");
+
+		userService.delete("1");
+
+		assertNull(cache.getIfPresent("user@helpdesk.com"));
+	}
+
+	private static User user(String id, String email, ProfileEnum profile) {
+		User user = new User();
+		user.setId(id);
+		user.setEmail(email);
+		user.setPassword("secret");
+		user.setProfile(profile);
+		return user;
+	}
+
+}
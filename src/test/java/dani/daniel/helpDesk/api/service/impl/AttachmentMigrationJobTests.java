@@ -0,0 +1,91 @@
+package dani.daniel.helpDesk.api.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.mongodb.client.result.UpdateResult;
+
+import dani.daniel.helpDesk.api.Attachment;
+import dani.daniel.helpDesk.api.Ticket;
+import dani.daniel.helpDesk.api.service.AttachmentService;
+import dani.daniel.helpDesk.api.service.TicketCounterService;
+
+class AttachmentMigrationJobTests {
+
+	private static final ObjectId TICKET_ID = new ObjectId("5f8d0d55b54764421b7156c9");
+
+	private MongoTemplate mongoTemplate;
+	private AttachmentService attachmentService;
+	private TicketCache ticketCache;
+	private AttachmentMigrationJob job;
+	private Attachment attachment;
+
+	@BeforeEach
+	void setUp() {
+		mongoTemplate = mock(MongoTemplate.class);
+		attachmentService = mock(AttachmentService.class);
+		ticketCache = mock(TicketCache.class);
+		job = new AttachmentMigrationJob();
+		ReflectionTestUtils.setField(job, "mongoTemplate", mongoTemplate);
+		ReflectionTestUtils.setField(job, "attachmentService", attachmentService);
+		ReflectionTestUtils.setField(job, "ticketCache", ticketCache);
+		ReflectionTestUtils.setField(job, "ticketCounterService", mock(TicketCounterService.class));
+		ReflectionTestUtils.setField(job, "batchSize", 50);
+		when(mongoTemplate.getCollectionName(Ticket.class)).thenReturn("ticket");
+		when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("ticket")))
+				.thenReturn(Collections.singletonList(new Document("_id", TICKET_ID)));
+		when(mongoTemplate.findOne(any(Query.class), eq(Document.class), eq("ticket")))
+				.thenReturn(new Document("_id", TICKET_ID).append("image", "aW1hZ2U=").append("number", 7).append("version", 3L));
+		attachment = new Attachment();
+		attachment.setId(new ObjectId().toHexString());
+		when(attachmentService.store("aW1hZ2U=", "ticket-7")).thenReturn(attachment);
+	}
+
+	@Test
+	void imageIsReplacedOnlyIfTheTicketIsUnchanged() {
+		when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Ticket.class)))
+				.thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+		assertEquals(1, job.migrateBatch(new HashSet<Object>()));
+
+		ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+		verify(mongoTemplate).updateFirst(query.capture(), any(Update.class), eq(Ticket.class));
+		Document guard = query.getValue().getQueryObject();
+		assertEquals(TICKET_ID, guard.get("_id"));
+		assertEquals(new Document("$exists", true), guard.get("image"));
+		assertEquals(3L, guard.get("version"));
+		verify(ticketCache).invalidate(TICKET_ID.toString());
+		verify(attachmentService, never()).delete(any(Attachment.class));
+	}
+
+	@Test
+	void fileStoredForATicketChangedMeanwhileIsRemoved() {
+		when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Ticket.class)))
+				.thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+		assertEquals(0, job.migrateBatch(new HashSet<Object>()));
+
+		verify(attachmentService).delete(attachment);
+		verify(ticketCache, never()).invalidate(anyString());
+	}
+
+}
@@ -0,0 +1,99 @@
+package dani.daniel.helpDesk.api.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import dani.daniel.helpDesk.api.Attachment;
+
+class AttachmentServiceImplTests {
+
+	private static final byte[] PNG = new byte[] { (byte) 0x89, 'P', 'N', 'G' };
+
+	private GridFsTemplate gridFsTemplate;
+	private AttachmentServiceImpl attachmentService;
+	private ByteArrayOutputStream stored;
+
+	@BeforeEach
+	void setUp() {
+		gridFsTemplate = mock(GridFsTemplate.class);
+		stored = new ByteArrayOutputStream();
+		when(gridFsTemplate.store(any(InputStream.class), anyString(), anyString())).thenAnswer(invocation -> {
+			InputStream content = invocation.getArgument(0);
+			int read;
+			while ((read = content.read()) != -1) {
+				stored.write(read);
+			}
+			return new ObjectId();
+		});
+		attachmentService = new AttachmentServiceImpl();
+		ReflectionTestUtils.setField(attachmentService, "gridFsTemplate", gridFsTemplate);
+	}
+
+	@Test
+	void dataUrlIsDecodedAndKeepsItsMediaType() {
+		Attachment attachment = attachmentService.store("data:image/png;base64," + Base64.getEncoder().encodeToString(PNG), "ticket-1");
+
+		assertArrayEquals(PNG, stored.toByteArray());
+		assertEquals("image/png", attachment.getContentType());
+		assertEquals(PNG.length, attachment.getLength());
+		assertEquals("ticket-1", attachment.getFilename());
+		verify(gridFsTemplate).store(any(InputStream.class), eq("ticket-1"), eq("image/png"));
+	}
+
+	@Test
+	void plainBase64IsStoredAsBinary() {
+		Attachment attachment = attachmentService.store(Base64.getEncoder().encodeToString(PNG), "ticket-1");
+
+		assertArrayEquals(PNG, stored.toByteArray());
+		assertEquals(AttachmentServiceImpl.DEFAULT_CONTENT_TYPE, attachment.getContentType());
+	}
+
+	@Test
+	void anythingElseIsStoredAsIs() {
+		attachmentService.store("not base64!", "ticket-1");
+
+		assertArrayEquals("not base64!".getBytes(StandardCharsets.UTF_8), stored.toByteArray());
+	}
+
+	@Test
+	void malformedIdsNeverReachGridFs() {
+		Attachment attachment = new Attachment();
+		attachment.setId("not-an-object-id");
+
+		assertNull(attachmentService.load(attachment));
+		attachmentService.delete(attachment);
+		attachmentService.delete(null);
+
+		verifyNoInteractions(gridFsTemplate);
+	}
+
+	@Test
+	void missingFileLoadsAsNull() {
+		Attachment attachment = new Attachment();
+		attachment.setId(new ObjectId().toHexString());
+
+		assertNull(attachmentService.load(attachment));
+		verify(gridFsTemplate).findOne(any(Query.class));
+	}
+
+}
@@ -0,0 +1,143 @@
+package dani.daniel.helpDesk.api.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.DefaultDbRefResolver;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import com.mongodb.DBRef;
+
+import dani.daniel.helpDesk.api.ChangeStatus;
+import dani.daniel.helpDesk.api.Ticket;
+import dani.daniel.helpDesk.api.User;
+import dani.daniel.helpDesk.api.enums.StatusEnum;
+
+class ChangeStatusJournalTests {
+
+	private static final MappingMongoConverter CONVERTER = new MappingMongoConverter(
+			new DefaultDbRefResolver(mock(MongoDatabaseFactory.class)), new MongoMappingContext());
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void referencesAndDatesReadBackUnchanged() throws IOException {
+		new ChangeStatusJournal(directory, false, 10).append(row(1));
+
+		Document recovered = new ChangeStatusJournal(directory, false, 10).recover().get(0).getRecovered().get(0);
+
+		assertEquals(row(1), recovered);
+		assertTrue(recovered.get("userChange") instanceof DBRef);
+		assertTrue(recovered.get("dateChangeStatus") instanceof Date);
+	}
+
+	@Test
+	void rowsLeftByACrashAreRecoveredInOrder() throws IOException {
+		ChangeStatusJournal crashed = new ChangeStatusJournal(directory, false, 2);
+		crashed.append(row(1));
+		crashed.append(row(2));
+		crashed.append(row(3));
+
+		List<ChangeStatusJournal.Segment> segments = new ChangeStatusJournal(directory, false, 2).recover();
+
+		assertEquals(2, segments.size());
+		assertEquals(Arrays.asList(row(1), row(2)), segments.get(0).getRecovered());
+		assertEquals(Arrays.asList(row(3)), segments.get(1).getRecovered());
+	}
+
+	@Test
+	void fullSegmentIsDeletedOnceEveryRowIsWritten() throws IOException {
+		ChangeStatusJournal journal = new ChangeStatusJournal(directory, false, 2);
+		ChangeStatusJournal.Segment first = journal.append(row(1));
+		journal.append(row(2));
+		ChangeStatusJournal.Segment second = journal.append(row(3));
+
+		journal.done(first, 1);
+		assertEquals(2, files());
+		journal.done(first, 1);
+		assertEquals(1, files());
+		journal.done(second, 1);
+		assertEquals(1, files());
+	}
+
+	@Test
+	void closeKeepsTheCurrentSegmentOnlyWhileRowsArePending() throws IOException {
+		ChangeStatusJournal journal = new ChangeStatusJournal(directory, false, 10);
+		journal.done(journal.append(row(1)), 1);
+		journal.close();
+		assertEquals(0, files());
+
+		journal = new ChangeStatusJournal(directory, false, 10);
+		journal.append(row(2));
+		journal.close();
+		assertEquals(1, files());
+	}
+
+	@Test
+	void segmentsWrittenAfterStartupAreNotRecovered() throws IOException {
+		new ChangeStatusJournal(directory, false, 10).append(row(1));
+		ChangeStatusJournal journal = new ChangeStatusJournal(directory, false, 10);
+		journal.append(row(2));
+
+		List<ChangeStatusJournal.Segment> segments = journal.recover();
+
+		assertEquals(1, segments.size());
+		assertEquals(Arrays.asList(row(1)), segments.get(0).getRecovered());
+		assertEquals(2, files());
+	}
+
+	@Test
+	void recoveredSegmentIsDeletedOnceReplayed() throws IOException {
+		new ChangeStatusJournal(directory, false, 10).append(row(1));
+		ChangeStatusJournal journal = new ChangeStatusJournal(directory, false, 10);
+		ChangeStatusJournal.Segment recovered = journal.recover().get(0);
+
+		journal.done(recovered, recovered.getRecovered().size());
+
+		assertEquals(0, files());
+		assertTrue(journal.recover().isEmpty());
+	}
+
+	private long files() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.count();
+		}
+	}
+
+	/**
+	 * A row as the writer journals it: a converted {@link ChangeStatus}, with
+	 * its ticket and user held as {@code DBRef}s.
+	 */
+	private static Document row(int n) {
+		Ticket ticket = new Ticket();
+		ticket.setId(new ObjectId(new Date(n * 1000L), n).toHexString());
+		User user = new User();
+		user.setId(new ObjectId(new Date(n * 1000L), n + 100).toHexString());
+		ChangeStatus changeStatus = new ChangeStatus();
+		changeStatus.setId(new ObjectId(new Date(n * 1000L), n + 200).toHexString());
+		changeStatus.setTicket(ticket);
+		changeStatus.setUserChange(user);
+		changeStatus.setDateChangeStatus(new Date(n * 1000L));
+		changeStatus.setStatus(StatusEnum.Assigned);
+		Document row = new Document();
+		CONVERTER.write(changeStatus, row);
+		return row;
+	}
+
+}
@@ -0,0 +1,199 @@
+package dani.daniel.helpDesk.api.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.DefaultDbRefResolver;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.mongodb.DBRef;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteInsert;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.InsertManyOptions;
+
+import dani.daniel.helpDesk.api.ChangeStatus;
+import dani.daniel.helpDesk.api.Ticket;
+import dani.daniel.helpDesk.api.User;
+import dani.daniel.helpDesk.api.enums.StatusEnum;
+
+class ChangeStatusWriterImplTests {
+
+	private static final MappingMongoConverter CONVERTER = new MappingMongoConverter(
+			new DefaultDbRefResolver(mock(MongoDatabaseFactory.class)), new MongoMappingContext());
+
+	@TempDir
+	Path directory;
+
+	private final List<ChangeStatusWriterImpl> writers = new ArrayList<ChangeStatusWriterImpl>();
+
+	@AfterEach
+	void tearDown() throws Exception {
+		for (ChangeStatusWriterImpl writer : writers) {
+			writer.stop();
+		}
+	}
+
+	@Test
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	void statusChangesLeftByAnOutageAreReplayedAtTheNextStartup() throws Exception {
+		List<ChangeStatus> changes = Arrays.asList(change(1), change(2), change(3));
+		leaveInJournal(changes);
+		MongoCollection<Document> collection = collection();
+
+		start(collection);
+		awaitEmptyJournal();
+
+		ArgumentCaptor<List> batches = ArgumentCaptor.forClass(List.class);
+		verify(collection, atLeastOnce()).insertMany(batches.capture(), any(InsertManyOptions.class));
+		Map<Object, Document> replayed = new HashMap<Object, Document>();
+		for (List<Document> batch : batches.getAllValues()) {
+			assertTrue(batch.size() <= 2);
+			for (Document row : batch) {
+				replayed.put(row.get("_id"), row);
+			}
+		}
+		assertEquals(3, replayed.size());
+		for (ChangeStatus changeStatus : changes) {
+			Document row = replayed.get(new ObjectId(changeStatus.getId()));
+			assertEquals(converted(changeStatus), row);
+			assertEquals(new DBRef("user", new ObjectId(changeStatus.getUserChange().getId())), row.get("userChange"));
+			assertEquals(changeStatus.getDateChangeStatus(), row.get("dateChangeStatus"));
+		}
+	}
+
+	@Test
+	void duplicateKeysMeanTheRowsWereAlreadyWritten() throws Exception {
+		leaveInJournal(Collections.singletonList(change(1)));
+		MongoCollection<Document> collection = collection();
+		BulkWriteResult inserted = BulkWriteResult.acknowledged(0, 0, 0, 0,
+				Collections.<BulkWriteUpsert>emptyList(), Collections.<BulkWriteInsert>emptyList());
+		doThrow(new MongoBulkWriteException(inserted,
+				Collections.singletonList(new BulkWriteError(11000, "E11000 duplicate key", new BsonDocument(), 0)),
+				null, new ServerAddress())).when(collection).insertMany(anyList(), any(InsertManyOptions.class));
+
+		start(collection);
+
+		awaitEmptyJournal();
+	}
+
+	@Test
+	void failedReplayStaysInTheJournalAndIsRetried() throws Exception {
+		leaveInJournal(Collections.singletonList(change(1)));
+		MongoCollection<Document> collection = collection();
+		doThrow(new IllegalStateException("primary stepped down")).doReturn(null)
+				.when(collection).insertMany(anyList(), any(InsertManyOptions.class));
+
+		start(collection);
+
+		awaitEmptyJournal();
+		verify(collection, times(2)).insertMany(anyList(), any(InsertManyOptions.class));
+	}
+
+	/**
+	 * Writes the changes while every insert fails and shuts down, which keeps
+	 * them in the journal the way a crash would.
+	 */
+	private void leaveInJournal(List<ChangeStatus> changes) throws Exception {
+		MongoCollection<Document> unavailable = collection();
+		doThrow(new IllegalStateException("no primary")).when(unavailable).insertMany(anyList(), any(InsertManyOptions.class));
+		ChangeStatusWriterImpl writer = start(unavailable);
+		writer.writeAll(changes);
+		writer.stop();
+		writers.remove(writer);
+		assertTrue(files() > 0);
+	}
+
+	private ChangeStatusWriterImpl start(MongoCollection<Document> collection) throws IOException {
+		MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+		when(mongoTemplate.getConverter()).thenReturn(CONVERTER);
+		when(mongoTemplate.getCollectionName(ChangeStatus.class)).thenReturn("changeStatus");
+		when(mongoTemplate.getCollection("changeStatus")).thenReturn(collection);
+		ChangeStatusWriterImpl writer = new ChangeStatusWriterImpl();
+		ReflectionTestUtils.setField(writer, "mongoTemplate", mongoTemplate);
+		ReflectionTestUtils.setField(writer, "queueCapacity", 100);
+		ReflectionTestUtils.setField(writer, "batchSize", 2);
+		ReflectionTestUtils.setField(writer, "flushInterval", 10L);
+		ReflectionTestUtils.setField(writer, "offerTimeout", 10L);
+		ReflectionTestUtils.setField(writer, "retryInterval", 10L);
+		ReflectionTestUtils.setField(writer, "journalDir", directory.toString());
+		writer.start();
+		writers.add(writer);
+		return writer;
+	}
+
+	private void awaitEmptyJournal() throws Exception {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (files() > 0) {
+			assertTrue(System.currentTimeMillis() < deadline, "journal was not replayed");
+			Thread.sleep(10);
+		}
+	}
+
+	private long files() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.count();
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static MongoCollection<Document> collection() {
+		return mock(MongoCollection.class);
+	}
+
+	private static Document converted(ChangeStatus changeStatus) {
+		Document row = new Document();
+		CONVERTER.write(changeStatus, row);
+		return row;
+	}
+
+	private static ChangeStatus change(int n) {
+		Ticket ticket = new Ticket();
+		ticket.setId(new ObjectId().toHexString());
+		User user = new User();
+		user.setId(new ObjectId().toHexString());
+		user.setEmail("technician" + n + "@helpdesk.com");
+		ChangeStatus changeStatus = new ChangeStatus();
+		changeStatus.setTicket(ticket);
+		changeStatus.setUserChange(user);
+		changeStatus.setDateChangeStatus(new Date(n * 1000L));
+		changeStatus.setStatus(StatusEnum.Assigned);
+		return changeStatus;
+	}
+
+}
@@ -0,0 +1,117 @@
+package dani.daniel.helpDesk.api.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import dani.daniel.helpDesk.api.service.SequenceService;
+
+class SequenceServiceImplTests {
+
+	private MongoTemplate mongoTemplate;
+	private AtomicLong stored;
+	private SequenceServiceImpl sequenceService;
+
+	@BeforeEach
+	void setUp() {
+		mongoTemplate = mock(MongoTemplate.class);
+		stored = new AtomicLong();
+		when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+				eq(Document.class), eq(SequenceServiceImpl.COLLECTION))).thenAnswer(invocation -> {
+					Update update = invocation.getArgument(1);
+					long amount = ((Number) update.getUpdateObject().get("$inc", Document.class).get("value")).longValue();
+					return new Document("value", stored.addAndGet(amount));
+				});
+		sequenceService = new SequenceServiceImpl();
+		ReflectionTestUtils.setField(sequenceService, "mongoTemplate", mongoTemplate);
+		ReflectionTestUtils.setField(sequenceService, "blockSize", 3L);
+	}
+
+	@Test
+	void handsOutAReservedBlockBeforeReservingTheNext() {
+		List<Long> values = new ArrayList<Long>();
+		for (int i = 0; i < 7; i++) {
+			values.add(sequenceService.next(SequenceService.TICKET_NUMBER));
+		}
+
+		assertEquals(7, values.size());
+		for (int i = 0; i < values.size(); i++) {
+			assertEquals(i + 1, values.get(i).longValue());
+		}
+		verifyRoundTrips(3);
+	}
+
+	@Test
+	void instancesSharingTheCounterNeverHandOutTheSameValue() {
+		SequenceServiceImpl other = new SequenceServiceImpl();
+		ReflectionTestUtils.setField(other, "mongoTemplate", mongoTemplate);
+		ReflectionTestUtils.setField(other, "blockSize", 3L);
+
+		assertEquals(1, sequenceService.next(SequenceService.TICKET_NUMBER));
+		assertEquals(4, other.next(SequenceService.TICKET_NUMBER));
+		assertEquals(2, sequenceService.next(SequenceService.TICKET_NUMBER));
+		assertEquals(5, other.next(SequenceService.TICKET_NUMBER));
+	}
+
+	@Test
+	void concurrentCallersGetDistinctValues() throws Exception {
+		Set<Long> values = ConcurrentHashMap.newKeySet();
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<?>> futures = new ArrayList<Future<?>>();
+			for (int i = 0; i < 8; i++) {
+				futures.add(executor.submit((Callable<Void>) () -> {
+					for (int j = 0; j < 300; j++) {
+						values.add(sequenceService.next(SequenceService.TICKET_NUMBER));
+					}
+					return null;
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		assertEquals(2400, values.size());
+		verifyRoundTrips(800);
+	}
+
+	@Test
+	void nextBlockReturnsTheFirstValueOfAContiguousRange() {
+		sequenceService.next(SequenceService.TICKET_NUMBER);
+
+		assertEquals(4, sequenceService.nextBlock(SequenceService.TICKET_NUMBER, 10));
+		assertEquals(13, stored.get());
+	}
+
+	private void verifyRoundTrips(int expected) {
+		verify(mongoTemplate, times(expected)).findAndModify(any(Query.class), any(Update.class),
+				any(FindAndModifyOptions.class), eq(Document.class), eq(SequenceServiceImpl.COLLECTION));
+	}
+
+}
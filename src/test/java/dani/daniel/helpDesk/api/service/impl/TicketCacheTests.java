@@ -0,0 +1,86 @@
+package dani.daniel.helpDesk.api.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import dani.daniel.helpDesk.api.Ticket;
+
+class TicketCacheTests {
+	
+	private LocalTicketInvalidationChannel channel;
+	private TicketCache nodeA;
+	private TicketCache nodeB;
+	private AtomicInteger loads;
+	
+	@BeforeEach
+	void setUp() {
+		channel = new LocalTicketInvalidationChannel();
+		nodeA = cache(channel);
+		nodeB = cache(channel);
+		loads = new AtomicInteger();
+	}
+
+	@Test
+	void readsThroughOnceAndServesCopies() {
+		Ticket first = nodeA.get("1", this::load).get();
+		Ticket second = nodeA.get("1", this::load).get();
+		
+		assertEquals(1, loads.get());
+		assertNotSame(first, second);
+		assertEquals(1, nodeA.stats().getHitCount());
+		assertEquals(1, nodeA.stats().getMissCount());
+	}
+	
+	@Test
+	void writeOnOneNodeEvictsFromTheOther() {
+		nodeA.get("1", this::load);
+		nodeB.get("1", this::load);
+		assertEquals(2, loads.get());
+		
+		nodeA.invalidate("1");
+		
+		assertEquals(0, nodeB.stats().getSize());
+		assertEquals(3, nodeB.get("1", this::load).get().getVersion().intValue());
+	}
+	
+	@Test
+	void bulkInvalidationOnlyDropsTheGivenIds() {
+		nodeB.get("1", this::load);
+		nodeB.get("2", this::load);
+		
+		nodeA.invalidate(Collections.singletonList("2"));
+		
+		assertEquals(1, nodeB.stats().getSize());
+		nodeB.get("1", this::load);
+		assertEquals(2, loads.get());
+	}
+	
+	@Test
+	void missingTicketsAreNotCached() {
+		assertFalse(nodeA.get("404", id -> null).isPresent());
+		assertEquals(0, nodeA.stats().getSize());
+	}
+	
+	private Ticket load(String id) {
+		Ticket ticket = new Ticket();
+		ticket.setId(id);
+		ticket.setVersion((long) loads.incrementAndGet());
+		return ticket;
+	}
+	
+	private static TicketCache cache(LocalTicketInvalidationChannel channel) {
+		TicketCache cache = new TicketCache(100, 60);
+		ReflectionTestUtils.setField(cache, "invalidationChannel", channel);
+		cache.subscribe();
+		return cache;
+	}
+
+}
@@ -0,0 +1,131 @@
+package dani.daniel.helpDesk.api.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import dani.daniel.helpDesk.api.dto.Summary;
+import dani.daniel.helpDesk.api.enums.StatusEnum;
+import dani.daniel.helpDesk.api.repository.TicketRepository;
+
+class TicketCounterServiceImplTests {
+
+	private MongoTemplate mongoTemplate;
+	private TicketRepository ticketRepository;
+	private TicketCounterServiceImpl counters;
+
+	@BeforeEach
+	void setUp() {
+		mongoTemplate = mock(MongoTemplate.class);
+		ticketRepository = mock(TicketRepository.class);
+		counters = new TicketCounterServiceImpl();
+		ReflectionTestUtils.setField(counters, "mongoTemplate", mongoTemplate);
+		ReflectionTestUtils.setField(counters, "ticketRepository", ticketRepository);
+	}
+
+	@Test
+	void moveShiftsAmountBetweenStatusesAndCountsTheWrite() {
+		counters.move(StatusEnum.New, StatusEnum.Closed, 3);
+
+		Document inc = new Document("changes", 1).append("New", -3L).append("Closed", 3L);
+		assertEquals(new Document("$inc", inc), lastUpsert().getUpdateObject());
+	}
+
+	@Test
+	void moveWithinTheSameStatusOnlyCountsTheWrite() {
+		counters.move(StatusEnum.New, StatusEnum.New);
+
+		assertEquals(Document.parse("{$inc: {changes: 1}}"), lastUpsert().getUpdateObject());
+	}
+
+	@Test
+	void moveOfNothingIsSkipped() {
+		counters.move(null, StatusEnum.New, 0);
+
+		verify(mongoTemplate, never()).upsert(any(Query.class), any(Update.class), any(String.class));
+	}
+
+	@Test
+	void rebuildRetriesWhenAWriteLandsBetweenReadAndStore() {
+		when(mongoTemplate.findOne(any(Query.class), eq(Document.class), eq(TicketCounterServiceImpl.COLLECTION)))
+				.thenReturn(new Document("changes", 5L), new Document("changes", 6L));
+		when(ticketRepository.summarize(null, null, null, null)).thenReturn(summary(4));
+		when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(TicketCounterServiceImpl.COLLECTION)))
+				.thenThrow(new DuplicateKeyException("changes moved"))
+				.thenReturn(null);
+
+		Summary summary = counters.rebuild();
+
+		assertEquals(4, summary.getAmountNew().intValue());
+		ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+		verify(mongoTemplate, times(2)).upsert(queries.capture(), any(Update.class), eq(TicketCounterServiceImpl.COLLECTION));
+		List<Query> stores = queries.getAllValues();
+		assertEquals(5L, stores.get(0).getQueryObject().get("changes"));
+		assertEquals(6L, stores.get(1).getQueryObject().get("changes"));
+	}
+
+	@Test
+	void rebuildGivesUpAfterTheLastAttempt() {
+		when(ticketRepository.summarize(null, null, null, null)).thenReturn(summary(1));
+		when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(TicketCounterServiceImpl.COLLECTION)))
+				.thenThrow(new DuplicateKeyException("changes moved"));
+
+		counters.rebuild();
+
+		verify(ticketRepository, times(TicketCounterServiceImpl.REBUILD_ATTEMPTS)).summarize(null, null, null, null);
+	}
+
+	@Test
+	void firstRebuildOnlyStoresWhenNoCounterExistsYet() {
+		when(ticketRepository.summarize(null, null, null, null)).thenReturn(summary(1));
+
+		counters.rebuild();
+
+		ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+		verify(mongoTemplate).upsert(query.capture(), any(Update.class), eq(TicketCounterServiceImpl.COLLECTION));
+		assertEquals(new Document("$exists", false), query.getValue().getQueryObject().get("changes"));
+	}
+
+	@Test
+	void missingAmountsReadAsZero() {
+		Summary summary = TicketCounterServiceImpl.toSummary(new Document("New", 2).append("changes", 9L));
+
+		assertEquals(2, summary.getAmountNew().intValue());
+		assertEquals(0, summary.getAmountClosed().intValue());
+	}
+
+	private Update lastUpsert() {
+		ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+		verify(mongoTemplate).upsert(any(Query.class), update.capture(), eq(TicketCounterServiceImpl.COLLECTION));
+		return update.getValue();
+	}
+
+	private static Summary summary(int amountNew) {
+		Summary summary = new Summary();
+		summary.setAmountNew(amountNew);
+		summary.setAmountAssigned(0);
+		summary.setAmountResolved(0);
+		summary.setAmountApproved(0);
+		summary.setAmountDisapproved(0);
+		summary.setAmountClosed(0);
+		return summary;
+	}
+
+}
@@ -0,0 +1,141 @@
+package dani.daniel.helpDesk.api.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.DBRef;
+
+import dani.daniel.helpDesk.api.dto.TicketFilter;
+import dani.daniel.helpDesk.api.enums.ExportFormatEnum;
+import dani.daniel.helpDesk.api.repository.TicketRepository;
+
+class TicketExportServiceImplTests {
+
+	private static final ObjectId TICKET_ID = new ObjectId("5f8d0d55b54764421b7156c9");
+	private static final ObjectId USER_ID = new ObjectId("5f8d0d55b54764421b7156ca");
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private TicketRepository ticketRepository;
+	private TicketExportServiceImpl exportService;
+	private TicketFilter filter;
+	private ListIterator tickets;
+
+	@BeforeEach
+	void setUp() {
+		ticketRepository = mock(TicketRepository.class);
+		exportService = new TicketExportServiceImpl(1);
+		ReflectionTestUtils.setField(exportService, "ticketRepository", ticketRepository);
+		ReflectionTestUtils.setField(exportService, "objectMapper", objectMapper);
+		filter = new TicketFilter();
+		filter.setFields(new LinkedHashSet<String>(Arrays.asList("id", "title", "user", "date")));
+	}
+
+	@Test
+	void csvQuotesOnlyTheValuesThatNeedIt() throws Exception {
+		stream(ticket("Printer, 2nd floor"), ticket("Says \"hi\""), ticket("two\nlines"), ticket("plain"));
+
+		String csv = export(ExportFormatEnum.csv);
+
+		String[] lines = csv.split("\r\n");
+		assertEquals("id,title,user,date", lines[0]);
+		assertEquals(TICKET_ID.toHexString() + ",\"Printer, 2nd floor\"," + USER_ID.toHexString() + ",1970-01-01T00:00:01Z", lines[1]);
+		assertTrue(lines[2].contains(",\"Says \"\"hi\"\"\","));
+		assertTrue(lines[3].contains(",\"two\nlines\","));
+		assertTrue(lines[4].contains(",plain,"));
+	}
+
+	@Test
+	void ndjsonWritesOneObjectPerTicketWithReferencesAsIds() throws Exception {
+		stream(ticket("Printer"), ticket("Mouse"));
+
+		String[] lines = export(ExportFormatEnum.ndjson).split("\n");
+
+		assertEquals(2, lines.length);
+		JsonNode first = objectMapper.readTree(lines[0]);
+		assertEquals(TICKET_ID.toHexString(), first.path("id").asText());
+		assertEquals(USER_ID.toHexString(), first.path("user").asText());
+		assertEquals("1970-01-01T00:00:01Z", first.path("date").asText());
+		assertEquals("Mouse", objectMapper.readTree(lines[1]).path("title").asText());
+	}
+
+	@Test
+	void cursorIsClosedOnceTheExportIsWritten() throws Exception {
+		stream(ticket("Printer"));
+
+		assertEquals(1, exportService.export(filter, ExportFormatEnum.ndjson, new ByteArrayOutputStream()));
+
+		assertTrue(tickets.closed);
+	}
+
+	@Test
+	void onlyTheConfiguredNumberOfExportsRunAtOnce() {
+		assertTrue(exportService.tryAcquire());
+		assertFalse(exportService.tryAcquire());
+		exportService.release();
+		assertTrue(exportService.tryAcquire());
+	}
+
+	private String export(ExportFormatEnum format) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		exportService.export(filter, format, out);
+		return new String(out.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	private void stream(Document... documents) {
+		tickets = new ListIterator(Arrays.asList(documents));
+		when(ticketRepository.streamByFilter(filter)).thenReturn(tickets);
+	}
+
+	private static Document ticket(String title) {
+		return new Document("_id", TICKET_ID)
+				.append("title", title)
+				.append("user", new DBRef("user", USER_ID))
+				.append("date", new Date(1000));
+	}
+
+	private static class ListIterator implements CloseableIterator<Document> {
+
+		private final Iterator<Document> documents;
+		private boolean closed;
+
+		ListIterator(List<Document> documents) {
+			this.documents = documents.iterator();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return documents.hasNext();
+		}
+
+		@Override
+		public Document next() {
+			return documents.next();
+		}
+
+		@Override
+		public void close() {
+			closed = true;
+		}
+	}
+
+}
@@ -0,0 +1,67 @@
+package dani.daniel.helpDesk.api.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+class TicketMergePatchTests {
+
+	@Test
+	void valuesAreSetAndNullsAreUnset() {
+		Map<String, Object> patch = new LinkedHashMap<String, Object>();
+		patch.put("title", "Printer on fire");
+		patch.put("priority", "High");
+		patch.put("description", null);
+
+		Document update = TicketMergePatch.toUpdate(patch).getUpdateObject();
+
+		assertEquals(new Document("title", "Printer on fire").append("priority", "High"), update.get("$set"));
+		assertEquals(new Document("description", 1), update.get("$unset"));
+	}
+
+	@Test
+	void versionAndImageAreNotWrittenByTheUpdate() {
+		Map<String, Object> patch = new HashMap<String, Object>();
+		patch.put("version", 3);
+		patch.put("image", "aGVsbG8=");
+		patch.put("title", "Printer");
+
+		Document update = TicketMergePatch.toUpdate(patch).getUpdateObject();
+
+		assertEquals(new Document("title", "Printer"), update.get("$set"));
+		assertFalse(update.containsKey("$unset"));
+		assertEquals(3L, TicketMergePatch.version(patch).longValue());
+	}
+
+	@Test
+	void fieldsOutsideTheEditableSetAreRejected() {
+		assertThrows(IllegalArgumentException.class, () -> TicketMergePatch.toUpdate(Collections.singletonMap("status", "Closed")));
+		assertThrows(IllegalArgumentException.class, () -> TicketMergePatch.toUpdate(Collections.singletonMap("attachment", null)));
+		assertThrows(IllegalArgumentException.class, () -> TicketMergePatch.toUpdate(Collections.singletonMap("number", 7)));
+	}
+
+	@Test
+	void invalidValuesAreRejected() {
+		assertThrows(IllegalArgumentException.class, () -> TicketMergePatch.toUpdate(Collections.singletonMap("title", null)));
+		assertThrows(IllegalArgumentException.class, () -> TicketMergePatch.toUpdate(Collections.singletonMap("title", "")));
+		assertThrows(IllegalArgumentException.class, () -> TicketMergePatch.toUpdate(Collections.singletonMap("priority", "Urgent")));
+		assertThrows(IllegalArgumentException.class, () -> TicketMergePatch.toUpdate(Collections.singletonMap("description", 42)));
+		assertThrows(IllegalArgumentException.class, () -> TicketMergePatch.toUpdate(Collections.<String, Object>emptyMap()));
+		assertThrows(IllegalArgumentException.class, () -> TicketMergePatch.version(Collections.singletonMap("version", "3")));
+	}
+
+	@Test
+	void patchWithoutVersionIsUnconditional() {
+		assertNull(TicketMergePatch.version(Collections.singletonMap("title", "Printer")));
+	}
+
+}
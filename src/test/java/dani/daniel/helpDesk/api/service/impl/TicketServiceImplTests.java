@@ -0,0 +1,331 @@
+package dani.daniel.helpDesk.api.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import dani.daniel.helpDesk.api.Attachment;
+import dani.daniel.helpDesk.api.ChangeStatus;
+import dani.daniel.helpDesk.api.Ticket;
+import dani.daniel.helpDesk.api.User;
+import dani.daniel.helpDesk.api.dto.TicketFilter;
+import dani.daniel.helpDesk.api.dto.TicketImportResult;
+import dani.daniel.helpDesk.api.dto.TicketStatusMove;
+import dani.daniel.helpDesk.api.dto.TicketStatusResult;
+import dani.daniel.helpDesk.api.enums.StatusEnum;
+import dani.daniel.helpDesk.api.repository.ChangeStatusRepository;
+import dani.daniel.helpDesk.api.repository.TicketRepository;
+import dani.daniel.helpDesk.api.repository.UserReferenceResolver;
+import dani.daniel.helpDesk.api.repository.UserRepository;
+import dani.daniel.helpDesk.api.service.AttachmentService;
+import dani.daniel.helpDesk.api.service.ChangeStatusWriter;
+import dani.daniel.helpDesk.api.service.SequenceService;
+import dani.daniel.helpDesk.api.service.StatusTransitionException;
+import dani.daniel.helpDesk.api.service.TicketCounterService;
+
+class TicketServiceImplTests {
+
+	private TicketRepository ticketRepository;
+	private ChangeStatusWriter changeStatusWriter;
+	private UserRepository userRepository;
+	private TicketCounterService ticketCounterService;
+	private SequenceService sequenceService;
+	private AttachmentService attachmentService;
+	private TicketServiceImpl ticketService;
+
+	@BeforeEach
+	void setUp() {
+		ticketRepository = mock(TicketRepository.class);
+		changeStatusWriter = mock(ChangeStatusWriter.class);
+		userRepository = mock(UserRepository.class);
+		ticketCounterService = mock(TicketCounterService.class);
+		sequenceService = mock(SequenceService.class);
+		attachmentService = mock(AttachmentService.class);
+		TicketCache ticketCache = new TicketCache(100, 60);
+		ReflectionTestUtils.setField(ticketCache, "invalidationChannel", new LocalTicketInvalidationChannel());
+		ticketCache.subscribe();
+
+		ticketService = new TicketServiceImpl(30);
+		ReflectionTestUtils.setField(ticketService, "ticketRepository", ticketRepository);
+		ReflectionTestUtils.setField(ticketService, "changeStatusRepository", mock(ChangeStatusRepository.class));
+		ReflectionTestUtils.setField(ticketService, "changeStatusWriter", changeStatusWriter);
+		ReflectionTestUtils.setField(ticketService, "userRepository", userRepository);
+		ReflectionTestUtils.setField(ticketService, "ticketCounterService", ticketCounterService);
+		ReflectionTestUtils.setField(ticketService, "sequenceService", sequenceService);
+		ReflectionTestUtils.setField(ticketService, "attachmentService", attachmentService);
+		ReflectionTestUtils.setField(ticketService, "userReferenceResolver", mock(UserReferenceResolver.class));
+		ReflectionTestUtils.setField(ticketService, "ticketCache", ticketCache);
+	}
+
+	@Test
+	void createCountsTheNewTicketOnce() {
+		when(ticketRepository.save(any(Ticket.class))).thenAnswer(invocation -> {
+			Ticket saved = invocation.getArgument(0);
+			saved.setId("1");
+			return saved;
+		});
+
+		ticketService.createOrUpdate(ticket(null, StatusEnum.New, null));
+
+		verify(ticketCounterService).move(null, StatusEnum.New);
+	}
+
+	@Test
+	void updateMovesCountersFromTheStoredStatusAtTheReadVersion() {
+		when(ticketRepository.findStateById("1")).thenReturn(ticket("1", StatusEnum.New, 4L));
+		when(ticketRepository.save(any(Ticket.class))).thenAnswer(invocation -> invocation.getArgument(0));
+		Ticket update = ticket("1", StatusEnum.Closed, null);
+
+		ticketService.createOrUpdate(update);
+
+		assertEquals(4L, update.getVersion().longValue());
+		verify(ticketCounterService).move(StatusEnum.New, StatusEnum.Closed);
+	}
+
+	@Test
+	void staleUpdateIsRejectedBeforeAnyWrite() {
+		when(ticketRepository.findStateById("1")).thenReturn(ticket("1", StatusEnum.New, 5L));
+
+		assertThrows(OptimisticLockingFailureException.class,
+				() -> ticketService.createOrUpdate(ticket("1", StatusEnum.Closed, 4L)));
+
+		verify(ticketRepository, never()).save(any(Ticket.class));
+		verifyNoInteractions(ticketCounterService);
+	}
+
+	@Test
+	void updateLosingTheRaceDropsItsAttachmentAndLeavesCountersAlone() {
+		Attachment attachment = new Attachment();
+		attachment.setId("a1");
+		when(ticketRepository.findStateById("1")).thenReturn(ticket("1", StatusEnum.New, 4L));
+		when(attachmentService.store(any(String.class), any(String.class))).thenReturn(attachment);
+		when(ticketRepository.save(any(Ticket.class))).thenThrow(new OptimisticLockingFailureException("version 4 is stale"));
+		Ticket update = ticket("1", StatusEnum.Closed, 4L);
+		update.setImage("data:image/png;base64,AAAA");
+
+		assertThrows(OptimisticLockingFailureException.class, () -> ticketService.createOrUpdate(update));
+
+		verify(attachmentService).delete(attachment);
+		verifyNoInteractions(ticketCounterService);
+	}
+
+	@Test
+	void approximateCountIsSharedByEqualFilters() {
+		TicketFilter filter = new TicketFilter();
+		filter.setUserId("u1");
+		TicketFilter same = new TicketFilter();
+		same.setUserId("u1");
+		when(ticketRepository.countByFilter(filter)).thenReturn(42L);
+
+		assertEquals(42L, ticketService.approximateCount(filter));
+		assertEquals(42L, ticketService.approximateCount(same));
+
+		verify(ticketRepository, times(1)).countByFilter(any(TicketFilter.class));
+	}
+
+	@Test
+	void statusChangeReturnsTheStoredVersionAndQueuesTheHistory() {
+		when(ticketRepository.changeStatus("1", StatusEnum.Resolved, null)).thenReturn(ticket("1", StatusEnum.Assigned, 7L));
+
+		Ticket ticket = ticketService.changeStatus("1", StatusEnum.Resolved, technician());
+
+		assertEquals(StatusEnum.Resolved, ticket.getStatus());
+		assertEquals(8L, ticket.getVersion().longValue());
+		verify(ticketCounterService).move(StatusEnum.Assigned, StatusEnum.Resolved);
+		ArgumentCaptor<ChangeStatus> history = ArgumentCaptor.forClass(ChangeStatus.class);
+		verify(changeStatusWriter).write(history.capture());
+		assertEquals(StatusEnum.Resolved, history.getValue().getStatus());
+		assertSame(ticket, history.getValue().getTicket());
+	}
+
+	@Test
+	void assigningMakesTheCallerTheAssignee() {
+		User technician = technician();
+		when(ticketRepository.changeStatus("1", StatusEnum.Assigned, technician)).thenReturn(ticket("1", StatusEnum.New, 0L));
+
+		assertSame(technician, ticketService.changeStatus("1", StatusEnum.Assigned, technician).getAssignedUser());
+	}
+
+	@Test
+	void disallowedTransitionReportsTheCurrentStatus() {
+		when(ticketRepository.findStateById("1")).thenReturn(ticket("1", StatusEnum.Closed, 3L));
+
+		StatusTransitionException e = assertThrows(StatusTransitionException.class,
+				() -> ticketService.changeStatus("1", StatusEnum.Resolved, technician()));
+
+		assertTrue(e.getMessage().contains("Closed"));
+		verifyNoInteractions(ticketCounterService, changeStatusWriter);
+	}
+
+	@Test
+	void statusChangeOfAMissingTicketIsNotFound() {
+		assertThrows(NoSuchElementException.class, () -> ticketService.changeStatus("1", StatusEnum.Resolved, technician()));
+	}
+
+	@Test
+	void patchIsConditionalOnTheIfMatchVersionOverTheBodyVersion() {
+		when(ticketRepository.findStateById("1")).thenReturn(ticket("1", StatusEnum.New, 4L));
+		when(ticketRepository.patch(eq("1"), any(Update.class), eq(4L))).thenReturn(ticket("1", StatusEnum.New, 5L));
+		Map<String, Object> patch = new HashMap<String, Object>();
+		patch.put("title", "Printer");
+		patch.put("version", 2);
+
+		assertEquals(5L, ticketService.patch("1", patch, 4L).getVersion().longValue());
+
+		verify(ticketCounterService).touch();
+	}
+
+	@Test
+	void stalePatchFailsAndDropsTheAttachmentItStored() {
+		Attachment attachment = new Attachment();
+		attachment.setId("a1");
+		when(ticketRepository.findStateById("1")).thenReturn(ticket("1", StatusEnum.New, 5L));
+		when(attachmentService.store(any(String.class), any(String.class))).thenReturn(attachment);
+		Map<String, Object> patch = new HashMap<String, Object>();
+		patch.put("image", "aGVsbG8=");
+
+		assertThrows(OptimisticLockingFailureException.class, () -> ticketService.patch("1", patch, 4L));
+
+		verify(attachmentService).delete(attachment);
+		verifyNoInteractions(ticketCounterService);
+	}
+
+	@Test
+	void patchOfAMissingTicketIsNotFound() {
+		assertThrows(NoSuchElementException.class,
+				() -> ticketService.patch("1", Collections.<String, Object>singletonMap("title", "Printer"), null));
+	}
+
+	@Test
+	void importReportsEachRowAndOnlyCountsTheInsertedOnes() {
+		when(sequenceService.nextBlock(SequenceService.TICKET_NUMBER, 3)).thenReturn(100L);
+		when(ticketRepository.insertUnordered(anyList())).thenReturn(Collections.singletonMap(1, "E11000 duplicate key"));
+		Attachment attachment = new Attachment();
+		attachment.setId("a1");
+		when(attachmentService.store(any(String.class), any(String.class))).thenReturn(attachment);
+		Ticket failing = ticket(null, StatusEnum.Closed, 9L);
+		failing.setImage("aGVsbG8=");
+		List<Ticket> tickets = Arrays.asList(ticket(null, null, null), failing, ticket(null, null, null));
+
+		List<TicketImportResult> results = ticketService.importTickets(tickets, technician());
+
+		assertEquals(100, results.get(0).getNumber().intValue());
+		assertEquals("E11000 duplicate key", results.get(1).getError());
+		assertEquals(102, results.get(2).getNumber().intValue());
+		assertEquals(StatusEnum.New, failing.getStatus());
+		assertEquals(0L, failing.getVersion().longValue());
+		verify(attachmentService).delete(attachment);
+		verify(ticketCounterService).move(null, StatusEnum.New, 2);
+	}
+
+	@Test
+	void emptyImportWritesNothing() {
+		assertTrue(ticketService.importTickets(Collections.<Ticket>emptyList(), technician()).isEmpty());
+
+		verifyNoInteractions(sequenceService, ticketCounterService);
+	}
+
+	@Test
+	void bulkChangeReportsAnOutcomePerTicket() {
+		Map<String, TicketStatusMove> moves = new HashMap<String, TicketStatusMove>();
+		moves.put("1", new TicketStatusMove("1", StatusEnum.Resolved, StatusEnum.Assigned));
+		moves.put("2", new TicketStatusMove("2", StatusEnum.Closed, null));
+		moves.put("4", new TicketStatusMove("4", StatusEnum.Resolved, null));
+		when(ticketRepository.changeStatus(anyCollection(), eq(StatusEnum.Resolved), isNull())).thenReturn(moves);
+
+		List<TicketStatusResult> results = ticketService.changeStatus(Arrays.asList("1", "2", "3", "4"),
+				StatusEnum.Resolved, null, technician());
+
+		assertEquals(StatusEnum.Resolved, results.get(0).getStatus());
+		assertNull(results.get(0).getError());
+		assertEquals(StatusEnum.Closed, results.get(1).getStatus());
+		assertTrue(results.get(1).getError().contains("cannot change"));
+		assertNull(results.get(2).getStatus());
+		assertTrue(results.get(2).getError().contains("not found"));
+		assertTrue(results.get(3).getError().contains("cannot change"));
+		verify(ticketRepository, times(1)).changeStatus(anyCollection(), eq(StatusEnum.Resolved), isNull());
+		verify(ticketCounterService).move(StatusEnum.Assigned, StatusEnum.Resolved, 1L);
+		@SuppressWarnings("rawtypes")
+		ArgumentCaptor<List> history = ArgumentCaptor.forClass(List.class);
+		verify(changeStatusWriter).writeAll(history.capture());
+		assertEquals(1, history.getValue().size());
+	}
+
+	@Test
+	void bulkCountersMoveFromTheStatusEachTicketActuallyLeft() {
+		User technician = technician();
+		Map<String, TicketStatusMove> moves = new HashMap<String, TicketStatusMove>();
+		moves.put("1", new TicketStatusMove("1", StatusEnum.Assigned, StatusEnum.New));
+		moves.put("2", new TicketStatusMove("2", StatusEnum.Assigned, StatusEnum.Disapproved));
+		moves.put("3", new TicketStatusMove("3", StatusEnum.Assigned, StatusEnum.New));
+		when(ticketRepository.changeStatus(anyCollection(), eq(StatusEnum.Assigned), eq(technician))).thenReturn(moves);
+
+		ticketService.changeStatus(Arrays.asList("1", "2", "3"), StatusEnum.Assigned, null, technician);
+
+		verify(ticketCounterService).move(StatusEnum.New, StatusEnum.Assigned, 2L);
+		verify(ticketCounterService).move(StatusEnum.Disapproved, StatusEnum.Assigned, 1L);
+	}
+
+	@Test
+	void bulkAssigneeMustExistAndOnlyGoesWithAssigned() {
+		assertThrows(IllegalArgumentException.class,
+				() -> ticketService.changeStatus(Arrays.asList("1"), StatusEnum.Resolved, "u2", technician()));
+		assertThrows(IllegalArgumentException.class,
+				() -> ticketService.changeStatus(Arrays.asList("1"), StatusEnum.Assigned, "u2", technician()));
+
+		verify(ticketRepository, never()).changeStatus(anyCollection(), any(StatusEnum.class), any());
+	}
+
+	@Test
+	void bulkChangeWithNothingMovedWritesNoHistory() {
+		when(ticketRepository.changeStatus(anyCollection(), eq(StatusEnum.Resolved), isNull()))
+				.thenReturn(Collections.singletonMap("1", new TicketStatusMove("1", StatusEnum.Closed, null)));
+
+		ticketService.changeStatus(Arrays.asList("1"), StatusEnum.Resolved, null, technician());
+
+		verifyNoInteractions(changeStatusWriter, ticketCounterService);
+	}
+
+	static User technician() {
+		User user = new User();
+		user.setId("t1");
+		return user;
+	}
+
+	static Ticket ticket(String id, StatusEnum status, Long version) {
+		Ticket ticket = new Ticket();
+		ticket.setId(id);
+		ticket.setStatus(status);
+		ticket.setVersion(version);
+		ticket.setNumber(1);
+		return ticket;
+	}
+
+}